@@ -10,7 +10,10 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.yubang.util.mcpdemo.service.ApiService;
 import org.yubang.util.mcpdemo.service.DatabaseService;
+import org.yubang.util.mcpdemo.service.DatabaseWriteService;
 import org.yubang.util.mcpdemo.service.ExcelExportService;
+import org.yubang.util.mcpdemo.service.ExportJobService;
+import org.yubang.util.mcpdemo.service.SchemaService;
 
 import java.util.List;
 
@@ -23,8 +26,11 @@ public class McpDemoApplication {
     }
 
     @Bean
-    public ToolCallbackProvider weatherTools(ApiService apiService, DatabaseService databaseService, ExcelExportService excelExportService) {
-        return MethodToolCallbackProvider.builder().toolObjects(apiService, databaseService, excelExportService).build();
+    public ToolCallbackProvider weatherTools(ApiService apiService, DatabaseService databaseService, ExcelExportService excelExportService,
+                                             SchemaService schemaService, DatabaseWriteService databaseWriteService,
+                                             ExportJobService exportJobService) {
+        return MethodToolCallbackProvider.builder().toolObjects(apiService, databaseService, excelExportService, schemaService,
+            databaseWriteService, exportJobService).build();
     }
 
 }
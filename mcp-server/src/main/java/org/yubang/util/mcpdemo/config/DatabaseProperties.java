@@ -0,0 +1,422 @@
+package org.yubang.util.mcpdemo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 数据库工具相关配置
+ * 对应application.properties中以mcp.database开头的配置项
+ */
+@Data
+@ConfigurationProperties(prefix = "mcp.database")
+public class DatabaseProperties {
+
+    /**
+     * 连接池配置
+     */
+    private Pool pool = new Pool();
+    
+    /**
+     * 查询结果缓存配置
+     */
+    private Cache cache = new Cache();
+    
+    /**
+     * 查询执行限制
+     */
+    private Query query = new Query();
+    
+    /**
+     * 数据库结构缓存配置
+     */
+    private Schema schema = new Schema();
+    
+    /**
+     * 数据源隔离舱配置
+     */
+    private Bulkhead bulkhead = new Bulkhead();
+    
+    /**
+     * 只读副本配置
+     */
+    private Replica replica = new Replica();
+    
+    /**
+     * 增量查询配置
+     */
+    private Incremental incremental = new Incremental();
+    
+    /**
+     * 大对象列读取配置
+     */
+    private Lob lob = new Lob();
+    
+    /**
+     * 批量写入配置
+     */
+    private Write write = new Write();
+    
+    /**
+     * 查询代价检查配置
+     */
+    private CostGuard costGuard = new CostGuard();
+    
+    /**
+     * 命名数据源，键为数据源名称，工具参数中通过datasource按名称引用
+     */
+    private Map<String, Datasource> datasources = new LinkedHashMap<>();
+    
+    /**
+     * 连接池注册表配置
+     * 每个不同的数据源(驱动+URL+用户)对应一个长期存在的连接池
+     */
+    @Data
+    public static class Pool {
+        /**
+         * 最多同时存在的连接池数量
+         */
+        private int maxPools = 16;
+        
+        /**
+         * 所有连接池的连接数总上限
+         */
+        private int maxTotalConnections = 64;
+        
+        /**
+         * 单个连接池的最大连接数
+         */
+        private int maximumPoolSize = 4;
+        
+        /**
+         * 单个连接池的最小空闲连接数
+         */
+        private int minimumIdle = 0;
+        
+        /**
+         * 获取连接的超时时间(毫秒)
+         */
+        private long connectionTimeoutMs = 5000;
+        
+        /**
+         * 连接空闲多久后被回收(毫秒)
+         */
+        private long idleTimeoutMs = 60000;
+        
+        /**
+         * 连接的最大存活时间(毫秒)
+         */
+        private long maxLifetimeMs = 1800000;
+        
+        /**
+         * 连接池多久未被使用后整体关闭(毫秒)
+         */
+        private long poolIdleEvictMs = 600000;
+        
+        /**
+         * 空闲连接池检查间隔(毫秒)
+         */
+        private long evictionIntervalMs = 60000;
+        
+        /**
+         * 每个连接缓存的预编译语句数量
+         */
+        private int prepStmtCacheSize = 250;
+        
+        /**
+         * 可被缓存的预编译语句最大长度
+         */
+        private int prepStmtCacheSqlLimit = 2048;
+    }
+    
+    /**
+     * 查询执行限制
+     */
+    @Data
+    public static class Query {
+        /**
+         * 默认查询超时时间(秒)，调用未指定时使用，0表示不限制
+         */
+        private int defaultTimeoutSeconds = 60;
+        
+        /**
+         * 查询超时时间上限(秒)，调用指定的超时时间不能超过此值，0表示不限制
+         */
+        private int maxTimeoutSeconds = 600;
+        
+        /**
+         * 默认最多返回的行数，调用未指定时使用，0表示不限制
+         */
+        private long defaultMaxRows = 10000;
+        
+        /**
+         * 单次查询最多返回的行数上限，0表示不限制
+         */
+        private long maxRows = 100000;
+        
+        /**
+         * 默认最多返回的结果字节数(按JSON序列化估算)，调用未指定时使用，0表示不限制
+         */
+        private long defaultMaxBytes = 4L * 1024 * 1024;
+        
+        /**
+         * 单次查询最多返回的结果字节数上限，0表示不限制
+         */
+        private long maxBytes = 32L * 1024 * 1024;
+    }
+    
+    /**
+     * 查询代价检查配置
+     * 执行查询前先EXPLAIN，估算扫描行数或全表扫描的表大小超出阈值时拒绝执行或加上LIMIT
+     */
+    @Data
+    public static class CostGuard {
+        /**
+         * 是否开启代价检查
+         */
+        private boolean enabled = false;
+        
+        /**
+         * 估算扫描行数上限，0表示不检查
+         */
+        private long maxEstimatedRows = 1000000;
+        
+        /**
+         * 允许全表扫描的表的最大估算行数，0表示不检查
+         */
+        private long maxFullScanRows = 100000;
+        
+        /**
+         * 估算代价上限，只对PostgreSQL生效，0表示不检查
+         */
+        private double maxCost = 0;
+        
+        /**
+         * 超出阈值时的处理方式：reject(拒绝执行)或limit(加上LIMIT后执行)
+         */
+        private String action = "reject";
+        
+        /**
+         * 处理方式为limit时最多返回的行数
+         */
+        private int limitRows = 1000;
+        
+        /**
+         * EXPLAIN的超时时间(秒)
+         */
+        private int explainTimeoutSeconds = 5;
+    }
+    
+    /**
+     * 数据源隔离舱配置
+     * 每个数据源同时执行的查询数与其连接池大小相同，超出的查询排队等待
+     */
+    @Data
+    public static class Bulkhead {
+        /**
+         * 单个数据源最多排队的查询数，超出时立即拒绝
+         */
+        private int maxQueued = 32;
+        
+        /**
+         * 排队等待的最长时间(毫秒)，超时后拒绝
+         */
+        private long queueTimeoutMs = 10000;
+    }
+    
+    /**
+     * 命名数据源定义
+     * 连接信息保存在服务端，工具调用只需提供名称；连接池在启动时预先创建并预热，且不会因空闲被回收
+     */
+    @Data
+    public static class Datasource {
+        /**
+         * JDBC驱动类名
+         */
+        private String driverClassName = "com.mysql.cj.jdbc.Driver";
+        
+        /**
+         * 数据库连接URL
+         */
+        private String url;
+        
+        /**
+         * 数据库用户名
+         */
+        private String username;
+        
+        /**
+         * 数据库密码
+         */
+        private String password;
+        
+        /**
+         * 只读副本URL列表
+         */
+        private List<String> replicaUrls = new ArrayList<>();
+        
+        /**
+         * 是否在启动时预热连接池
+         */
+        private boolean warmUp = true;
+        
+        /**
+         * 连接池保持的最小空闲连接数，预热时建立相同数量的连接
+         */
+        private int minimumIdle = 1;
+        
+        /**
+         * 预热时校验连接的SQL，为空时使用驱动的isValid校验
+         */
+        private String validationQuery;
+    }
+    
+    /**
+     * 只读副本配置
+     */
+    @Data
+    public static class Replica {
+        /**
+         * 健康检查间隔(毫秒)，不健康的副本检查通过后重新参与分配
+         */
+        private long healthCheckIntervalMs = 10000;
+        
+        /**
+         * 健康检查时校验连接的超时时间(秒)
+         */
+        private int healthCheckTimeoutSeconds = 3;
+        
+        /**
+         * 所有副本都不可用时是否回退到主库
+         */
+        private boolean fallbackToPrimary = true;
+    }
+    
+    /**
+     * 大对象列读取配置
+     * BLOB/CLOB/TEXT等列通过流读取，超出长度的值按处理方式截断、只计算摘要或写入临时文件
+     */
+    @Data
+    public static class Lob {
+        /**
+         * 默认处理方式：truncate、hash、spill或full
+         */
+        private String defaultMode = "truncate";
+        
+        /**
+         * 默认每个值最多返回的长度，文本为字符数，二进制为字节数
+         */
+        private int defaultMaxBytes = 64 * 1024;
+        
+        /**
+         * 调用可指定的每个值最大长度上限
+         */
+        private int maxBytes = 16 * 1024 * 1024;
+    }
+    
+    /**
+     * 批量写入配置
+     * 行按批次绑定到同一条预编译语句执行，每批提交一次
+     */
+    @Data
+    public static class Write {
+        /**
+         * 是否允许通过工具写入数据，默认关闭
+         */
+        private boolean enabled = false;
+        
+        /**
+         * 允许写入的表，按表名不区分大小写匹配，带schema的表名需要写出完整名称；为空时不允许写入任何表
+         */
+        private List<String> allowedTables = new ArrayList<>();
+        
+        /**
+         * 默认每批的行数
+         */
+        private int defaultBatchSize = 1000;
+        
+        /**
+         * 调用可指定的每批行数上限
+         */
+        private int maxBatchSize = 10000;
+        
+        /**
+         * 单次调用最多写入的行数，0表示不限制
+         */
+        private long maxRows = 1000000;
+    }
+    
+    /**
+     * 增量查询配置
+     */
+    @Data
+    public static class Incremental {
+        /**
+         * 最多保存的水位数量，超出时淘汰最久未使用的
+         */
+        private int maxEntries = 10000;
+        
+        /**
+         * 水位的保存时间(秒)，超过此时间未更新的水位失效
+         */
+        private long ttlSeconds = 7 * 24 * 3600;
+    }
+    
+    /**
+     * 数据库结构缓存配置
+     */
+    @Data
+    public static class Schema {
+        /**
+         * 结构信息超过此时间(秒)后，访问时返回缓存并在后台刷新
+         */
+        private long refreshAfterSeconds = 300;
+        
+        /**
+         * 结构信息的过期时间(秒)，过期后访问时同步重新加载
+         */
+        private long ttlSeconds = 3600;
+        
+        /**
+         * 最多缓存的数据源数量
+         */
+        private int maxEntries = 32;
+    }
+    
+    /**
+     * 查询结果缓存配置
+     */
+    @Data
+    public static class Cache {
+        /**
+         * 是否启用查询结果缓存
+         */
+        private boolean enabled = true;
+        
+        /**
+         * 缓存占用的最大字节数(估算)
+         */
+        private long maxBytes = 64L * 1024 * 1024;
+        
+        /**
+         * 单条结果的最大字节数，超过则不缓存
+         */
+        private long maxEntryBytes = 8L * 1024 * 1024;
+        
+        /**
+         * 默认过期时间(秒)，默认为0即不缓存：缓存只能感知本服务的写入，
+         * 其他途径的修改在过期前不可见，需要缓存时按数据源或按调用开启
+         */
+        private long defaultTtlSeconds = 0;
+        
+        /**
+         * 按JDBC URL单独设置的过期时间(秒)，0表示该数据源不缓存
+         */
+        private Map<String, Long> datasourceTtlSeconds = new HashMap<>();
+    }
+}
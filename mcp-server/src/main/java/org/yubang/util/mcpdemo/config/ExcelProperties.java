@@ -0,0 +1,63 @@
+package org.yubang.util.mcpdemo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Excel导出配置
+ * 对应application.properties中以mcp.excel开头的配置项
+ */
+@Data
+@ConfigurationProperties(prefix = "mcp.excel")
+public class ExcelProperties {
+
+    /**
+     * 默认是否使用流式导出(SXSSF)，调用可通过streaming覆盖
+     */
+    private boolean streaming = true;
+    
+    /**
+     * 流式导出时内存中保留的行数，超出的行写入临时文件
+     */
+    private int rowAccessWindowSize = 100;
+    
+    /**
+     * 流式导出的临时文件是否使用gzip压缩
+     */
+    private boolean compressTempFiles = true;
+    
+    /**
+     * 估算列宽时全部采样的前若干行
+     */
+    private int widthSampleRows = 1000;
+    
+    /**
+     * 超出widthSampleRows后每隔多少行采样一行用于估算列宽，0表示不再采样
+     */
+    private int widthSampleInterval = 100;
+    
+    /**
+     * 列宽上限(字符数)
+     */
+    private int maxColumnWidth = 80;
+    
+    /**
+     * 默认返回方式：file(写入临时文件存储并返回下载句柄)或base64(在工具结果中内联返回)
+     */
+    private String defaultDelivery = "file";
+    
+    /**
+     * 异步导出任务的工作线程数，即同时执行的导出任务数
+     */
+    private int jobWorkers = 2;
+    
+    /**
+     * 等待执行的异步导出任务上限，队列已满时提交立即被拒绝
+     */
+    private int jobQueueCapacity = 16;
+    
+    /**
+     * 推送export_progress进度事件的最小间隔(毫秒)
+     */
+    private long jobProgressIntervalMs = 1000;
+}
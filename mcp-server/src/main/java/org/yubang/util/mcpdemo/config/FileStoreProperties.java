@@ -0,0 +1,33 @@
+package org.yubang.util.mcpdemo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 临时文件存储配置
+ * 对应application.properties中以mcp.file-store开头的配置项
+ */
+@Data
+@ConfigurationProperties(prefix = "mcp.file-store")
+public class FileStoreProperties {
+
+    /**
+     * 临时文件目录，为空时使用系统临时目录下的mcp-files
+     */
+    private String directory;
+    
+    /**
+     * 临时文件的保存时间(秒)，超过后被清理
+     */
+    private long ttlSeconds = 3600;
+    
+    /**
+     * 所有临时文件的总大小上限(字节)，超出时拒绝写入新文件
+     */
+    private long maxTotalBytes = 1024L * 1024 * 1024;
+    
+    /**
+     * 清理任务的执行间隔(毫秒)
+     */
+    private long cleanupIntervalMs = 60000;
+}
@@ -1,5 +1,6 @@
 package org.yubang.util.mcpdemo.config;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
 /**
@@ -7,6 +8,7 @@ import org.springframework.context.annotation.Configuration;
  * 使用application.properties中的配置自动配置MCP服务器
  */
 @Configuration
+@EnableConfigurationProperties({DatabaseProperties.class, FileStoreProperties.class, ExcelProperties.class})
 public class McpServerConfig {
     // 移除了手动配置，使用spring-ai-starter-mcp-server自动配置
-} 
\ No newline at end of file
+}
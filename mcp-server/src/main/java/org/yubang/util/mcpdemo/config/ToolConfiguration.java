@@ -4,7 +4,10 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.yubang.util.mcpdemo.service.ApiService;
 import org.yubang.util.mcpdemo.service.DatabaseService;
+import org.yubang.util.mcpdemo.service.DatabaseWriteService;
 import org.yubang.util.mcpdemo.service.ExcelExportService;
+import org.yubang.util.mcpdemo.service.ExportJobService;
+import org.yubang.util.mcpdemo.service.SchemaService;
 
 import java.util.Arrays;
 import java.util.List;
@@ -21,10 +24,16 @@ public class ToolConfiguration {
      * @param apiService API服务
      * @param databaseService 数据库服务
      * @param excelExportService Excel导出服务
+     * @param schemaService 数据库结构服务
+     * @param databaseWriteService 数据库批量写入服务
+     * @param exportJobService 异步导出任务服务
      * @return 工具服务列表
      */
     @Bean
-    public List<Object> toolServices(ApiService apiService, DatabaseService databaseService, ExcelExportService excelExportService) {
-        return Arrays.asList(apiService, databaseService, excelExportService);
+    public List<Object> toolServices(ApiService apiService, DatabaseService databaseService, ExcelExportService excelExportService,
+                                     SchemaService schemaService, DatabaseWriteService databaseWriteService,
+                                     ExportJobService exportJobService) {
+        return Arrays.asList(apiService, databaseService, excelExportService, schemaService, databaseWriteService,
+            exportJobService);
     }
 } 
\ No newline at end of file
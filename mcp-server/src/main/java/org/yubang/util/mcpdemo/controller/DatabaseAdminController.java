@@ -0,0 +1,188 @@
+package org.yubang.util.mcpdemo.controller;
+
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.yubang.util.mcpdemo.model.BulkheadStats;
+import org.yubang.util.mcpdemo.model.CacheStats;
+import org.yubang.util.mcpdemo.model.DataSourceStats;
+import org.yubang.util.mcpdemo.model.ReplicaStats;
+import org.yubang.util.mcpdemo.service.DataSourceCatalog;
+import org.yubang.util.mcpdemo.service.DataSourceRegistry;
+import org.yubang.util.mcpdemo.service.JdbcExecutor;
+import org.yubang.util.mcpdemo.service.QueryCancellationRegistry;
+import org.yubang.util.mcpdemo.service.QueryResultCache;
+import org.yubang.util.mcpdemo.service.SchemaService;
+import org.yubang.util.mcpdemo.service.WatermarkStore;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 数据库管理控制器
+ * 提供命名数据源、连接池、只读副本、隔离舱、查询结果缓存、结构缓存、增量查询水位、正在执行的查询的状态查询和管理接口
+ */
+@RestController
+@RequestMapping("/api/admin/database")
+public class DatabaseAdminController {
+
+    private final DataSourceRegistry dataSourceRegistry;
+    
+    private final DataSourceCatalog dataSourceCatalog;
+    
+    private final QueryResultCache queryResultCache;
+    
+    private final QueryCancellationRegistry queryCancellationRegistry;
+    
+    private final SchemaService schemaService;
+    
+    private final JdbcExecutor jdbcExecutor;
+    
+    private final WatermarkStore watermarkStore;
+    
+    public DatabaseAdminController(DataSourceRegistry dataSourceRegistry, DataSourceCatalog dataSourceCatalog,
+                                   QueryResultCache queryResultCache, QueryCancellationRegistry queryCancellationRegistry,
+                                   SchemaService schemaService, JdbcExecutor jdbcExecutor,
+                                   WatermarkStore watermarkStore) {
+        this.dataSourceRegistry = dataSourceRegistry;
+        this.dataSourceCatalog = dataSourceCatalog;
+        this.queryResultCache = queryResultCache;
+        this.queryCancellationRegistry = queryCancellationRegistry;
+        this.schemaService = schemaService;
+        this.jdbcExecutor = jdbcExecutor;
+        this.watermarkStore = watermarkStore;
+    }
+    
+    /**
+     * 列出application.properties中定义的命名数据源，不包含凭据
+     * @return 数据源名称、指纹及副本数
+     */
+    @GetMapping("/datasources")
+    public List<Map<String, Object>> getDatasources() {
+        return dataSourceCatalog.list();
+    }
+    
+    /**
+     * 获取所有连接池的统计信息
+     * @return 连接池统计信息列表
+     */
+    @GetMapping("/pools")
+    public List<DataSourceStats> getPools() {
+        return dataSourceRegistry.getStats();
+    }
+    
+    /**
+     * 关闭并移除指定连接池
+     * @param fingerprint 数据源指纹
+     * @return 操作结果
+     */
+    @DeleteMapping("/pools/{fingerprint}")
+    public Map<String, Object> evictPool(@PathVariable String fingerprint) {
+        if (!dataSourceRegistry.evict(fingerprint)) {
+            return Map.of("error", "连接池不存在: " + fingerprint, "status", "error");
+        }
+        return Map.of("success", true, "fingerprint", fingerprint);
+    }
+    
+    /**
+     * 获取所有只读副本的健康状态
+     * @return 副本的健康状态、未完成请求数及分配次数
+     */
+    @GetMapping("/replicas")
+    public List<ReplicaStats> getReplicas() {
+        return dataSourceRegistry.getReplicaStats();
+    }
+    
+    /**
+     * 获取各数据源隔离舱的统计信息
+     * @return 并发数、排队数、拒绝次数及排队时间
+     */
+    @GetMapping("/bulkheads")
+    public List<BulkheadStats> getBulkheads() {
+        return jdbcExecutor.getStats();
+    }
+    
+    /**
+     * 获取查询结果缓存的统计信息
+     * @return 命中、未命中、淘汰次数及容量信息
+     */
+    @GetMapping("/cache")
+    public CacheStats getCacheStats() {
+        return queryResultCache.getStats();
+    }
+    
+    /**
+     * 使查询结果缓存失效
+     * @param datasource 数据源指纹，为空时使全部缓存失效
+     * @return 失效的条目数
+     */
+    @DeleteMapping("/cache")
+    public Map<String, Object> invalidateCache(@RequestParam(required = false) String datasource) {
+        int count = datasource == null || datasource.isEmpty()
+            ? queryResultCache.invalidateAll()
+            : queryResultCache.invalidate(datasource);
+        return Map.of("success", true, "invalidated", count);
+    }
+    
+    /**
+     * 获取已缓存结构信息的数据源
+     * @return 数据源指纹 -> 加载时间戳
+     */
+    @GetMapping("/schema")
+    public Map<String, Long> getCachedSchemas() {
+        return schemaService.getCached();
+    }
+    
+    /**
+     * 使结构缓存失效
+     * @param datasource 数据源指纹，为空时使全部结构缓存失效
+     * @return 失效的数据源数
+     */
+    @DeleteMapping("/schema")
+    public Map<String, Object> invalidateSchema(@RequestParam(required = false) String datasource) {
+        int count = datasource == null || datasource.isEmpty()
+            ? schemaService.invalidateAll()
+            : (schemaService.invalidate(datasource) ? 1 : 0);
+        return Map.of("success", true, "invalidated", count);
+    }
+    
+    /**
+     * 获取已记录的增量查询水位数量
+     * @return 水位数量
+     */
+    @GetMapping("/watermarks")
+    public Map<String, Object> getWatermarks() {
+        return Map.of("entries", watermarkStore.size());
+    }
+    
+    /**
+     * 清除全部增量查询水位，之后的增量查询从头读取
+     * @return 清除的水位数量
+     */
+    @DeleteMapping("/watermarks")
+    public Map<String, Object> clearWatermarks() {
+        return Map.of("success", true, "cleared", watermarkStore.clear());
+    }
+    
+    /**
+     * 获取各客户端正在执行的查询数
+     * @return 客户端ID -> 查询数
+     */
+    @GetMapping("/queries")
+    public Map<String, Integer> getInFlightQueries() {
+        return queryCancellationRegistry.getInFlight();
+    }
+    
+    /**
+     * 取消指定客户端所有正在执行的查询
+     * @param clientId 客户端ID
+     * @return 取消的查询数
+     */
+    @DeleteMapping("/queries/{clientId}")
+    public Map<String, Object> cancelQueries(@PathVariable String clientId) {
+        return Map.of("success", true, "cancelled", queryCancellationRegistry.cancelAll(clientId));
+    }
+}
@@ -0,0 +1,68 @@
+package org.yubang.util.mcpdemo.controller;
+
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.yubang.util.mcpdemo.model.ExportJobStatus;
+import org.yubang.util.mcpdemo.service.ExportJobService;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 异步导出任务控制器
+ * 提供导出任务的状态查询和取消接口，供错过export_progress事件的客户端轮询；
+ * 完成的任务状态中包含下载句柄，所有接口都需要提供clientId，只能访问该客户端提交的任务
+ */
+@RestController
+@RequestMapping("/api/exports")
+public class ExportJobController {
+
+    private final ExportJobService exportJobService;
+    
+    public ExportJobController(ExportJobService exportJobService) {
+        this.exportJobService = exportJobService;
+    }
+    
+    /**
+     * 列出客户端的导出任务
+     * @param clientId 客户端ID
+     * @return 任务状态列表
+     */
+    @GetMapping
+    public List<ExportJobStatus> listJobs(@RequestParam String clientId) {
+        return exportJobService.listStatus(clientId);
+    }
+    
+    /**
+     * 查询导出任务状态
+     * @param jobId 任务ID
+     * @param clientId 提交任务的客户端ID
+     * @return 任务状态，完成时包含下载句柄
+     */
+    @GetMapping("/{jobId}")
+    public Object getJob(@PathVariable String jobId, @RequestParam String clientId) {
+        ExportJobStatus status = exportJobService.getStatus(jobId, clientId);
+        if (status == null) {
+            return Map.of("error", "导出任务不存在: " + jobId, "status", "error");
+        }
+        return status;
+    }
+    
+    /**
+     * 取消导出任务
+     * @param jobId 任务ID
+     * @param clientId 提交任务的客户端ID
+     * @return 操作结果
+     */
+    @DeleteMapping("/{jobId}")
+    public Map<String, Object> cancelJob(@PathVariable String jobId, @RequestParam String clientId) {
+        if (!exportJobService.cancel(jobId, clientId)) {
+            return Map.of("error", "导出任务不存在或已结束: " + jobId, "status", "error");
+        }
+        return Map.of("success", true, "jobId", jobId);
+    }
+}
@@ -0,0 +1,174 @@
+package org.yubang.util.mcpdemo.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.yubang.util.mcpdemo.service.TempFileStore;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 临时文件下载控制器
+ * 按句柄下载临时文件存储中的文件，如导出的Excel和溢出到磁盘的大对象；
+ * 支持单个Range请求，文件内容不经过堆内存：Tomcat支持sendfile时交给容器直接发送，
+ * 否则通过FileChannel.transferTo写入响应
+ */
+@RestController
+@RequestMapping("/api/files")
+public class FileController {
+
+    // Tomcat的sendfile请求属性
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    
+    // 只支持单个字节范围：bytes=start-end、bytes=start-、bytes=-suffix
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+    
+    private final TempFileStore tempFileStore;
+    
+    public FileController(TempFileStore tempFileStore) {
+        this.tempFileStore = tempFileStore;
+    }
+    
+    /**
+     * 下载临时文件
+     * @param handle 文件句柄
+     * @param filename 下载时使用的文件名，为空时使用句柄
+     * @param request HTTP请求
+     * @param response HTTP响应
+     * @throws IOException 读取文件或写入响应失败
+     */
+    @GetMapping("/{handle}")
+    public void download(@PathVariable String handle, @RequestParam(required = false) String filename,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file = tempFileStore.resolve(handle);
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "文件不存在或已过期: " + handle);
+            return;
+        }
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            long start = 0;
+            long end = length - 1;
+            
+            // 没有Range、多个范围或无效的Range按完整文件返回
+            ByteRange range = parseRange(request.getHeader(HttpHeaders.RANGE), length);
+            if (range != null) {
+                if (!range.satisfiable) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                start = range.start;
+                end = range.end;
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+            
+            long count = end - start + 1;
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            response.setContentType(mediaType(handle).toString());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(filename != null && !filename.isBlank() ? filename : handle, StandardCharsets.UTF_8)
+                .build().toString());
+            response.setContentLengthLong(count);
+            
+            if (count > 0 && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+                // 由容器在响应提交后使用sendfile直接从文件发送到套接字
+                request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, end + 1);
+                return;
+            }
+            
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                long transferred = channel.transferTo(position, end + 1 - position, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+    
+    /**
+     * 解析Range请求头
+     * 格式无效、包含多个范围、结束位置小于起始位置(如bytes=5-3)或数值溢出时忽略，返回null；
+     * 结束位置超出文件时截到文件末尾，只有起始位置不小于文件长度时才不可满足
+     *
+     * @param header Range请求头，可以为空
+     * @param length 文件长度
+     * @return 要返回的字节范围，应返回完整文件时为null
+     */
+    static ByteRange parseRange(String header, long length) {
+        Matcher matcher = header == null ? null : RANGE.matcher(header.trim());
+        if (matcher == null || !matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+            return null;
+        }
+        
+        long start;
+        long end = length - 1;
+        try {
+            if (matcher.group(1).isEmpty()) {
+                // 后缀范围：最后n个字节，bytes=-0不可满足
+                start = Math.max(0, length - Long.parseLong(matcher.group(2)));
+            } else {
+                start = Long.parseLong(matcher.group(1));
+                if (!matcher.group(2).isEmpty()) {
+                    long last = Long.parseLong(matcher.group(2));
+                    if (last < start) {
+                        return null;
+                    }
+                    end = Math.min(end, last);
+                }
+            }
+        } catch (NumberFormatException e) {
+            // 超出long范围的数字
+            return null;
+        }
+        return new ByteRange(start, end, start < length);
+    }
+    
+    private MediaType mediaType(String handle) {
+        if (handle.endsWith(".txt")) {
+            return new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+        }
+        return MediaTypeFactory.getMediaType(handle).orElse(MediaType.APPLICATION_OCTET_STREAM);
+    }
+    
+    /**
+     * 单个字节范围，start和end均包含在内
+     */
+    static class ByteRange {
+        final long start;
+        final long end;
+        final boolean satisfiable;
+        
+        ByteRange(long start, long end, boolean satisfiable) {
+            this.start = start;
+            this.end = end;
+            this.satisfiable = satisfiable;
+        }
+    }
+}
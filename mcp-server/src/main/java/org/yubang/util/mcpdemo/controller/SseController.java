@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.yubang.util.mcpdemo.service.SseEmitterService;
+import org.yubang.util.mcpdemo.service.ToolCallContext;
 import org.yubang.util.mcpdemo.service.ToolExecutionService;
 
 import java.io.IOException;
@@ -112,8 +113,14 @@ public class SseController {
                     return Map.of("error", "客户端连接已断开", "status", "error");
                 }
                 
-                // 2. 执行工具调用
-                String toolResult = executeToolFunction(toolName, arguments);
+                // 2. 执行工具调用，工具可通过上下文向当前客户端推送事件
+                String toolResult;
+                ToolCallContext.set(new ToolCallContext(clientId, toolCallId));
+                try {
+                    toolResult = executeToolFunction(toolName, arguments);
+                } finally {
+                    ToolCallContext.clear();
+                }
                 log.info("工具执行完成, 结果: {}", toolResult);
                 
                 // 3. 发送工具执行结果给客户端
@@ -0,0 +1,94 @@
+package org.yubang.util.mcpdemo.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 聚合查询配置类
+ * 由结构化的分组、聚合函数和过滤条件生成参数化SQL，在数据库中完成统计
+ */
+@Data
+public class AggregateConfig {
+    /**
+     * 数据库配置，提供连接信息
+     */
+    private DatabaseConfig databaseConfig;
+    
+    /**
+     * 要统计的表名，为空时使用databaseConfig中的tableName
+     */
+    private String tableName;
+    
+    /**
+     * 分组列
+     */
+    private List<String> groupBy;
+    
+    /**
+     * 聚合函数，为空时统计行数COUNT(*)
+     */
+    private List<Aggregate> aggregates;
+    
+    /**
+     * 过滤条件，多个条件之间为AND关系
+     */
+    private List<Filter> filters;
+    
+    /**
+     * 排序，每项为分组列或聚合别名，可加上ASC/DESC，如"total DESC"
+     */
+    private List<String> orderBy;
+    
+    /**
+     * 最多返回的分组数
+     */
+    private int limit = 1000;
+    
+    /**
+     * 聚合函数
+     */
+    @Data
+    public static class Aggregate {
+        /**
+         * 函数名：COUNT、SUM、AVG、MIN、MAX
+         */
+        private String function;
+        
+        /**
+         * 聚合的列，COUNT时为空表示COUNT(*)
+         */
+        private String column;
+        
+        /**
+         * 结果列别名，为空时自动生成，如sum_amount
+         */
+        private String alias;
+        
+        /**
+         * 是否只聚合不同的值，如COUNT(DISTINCT column)
+         */
+        private boolean distinct;
+    }
+    
+    /**
+     * 过滤条件
+     */
+    @Data
+    public static class Filter {
+        /**
+         * 列名
+         */
+        private String column;
+        
+        /**
+         * 运算符：=、!=、<>、>、>=、<、<=、LIKE、NOT LIKE、IN、NOT IN、BETWEEN、IS NULL、IS NOT NULL
+         */
+        private String operator = "=";
+        
+        /**
+         * 比较值，IN/NOT IN时为数组，BETWEEN时为两个元素的数组，IS NULL/IS NOT NULL时不需要
+         */
+        private Object value;
+    }
+}
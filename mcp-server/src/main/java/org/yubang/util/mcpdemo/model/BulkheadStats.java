@@ -0,0 +1,54 @@
+package org.yubang.util.mcpdemo.model;
+
+import lombok.Data;
+
+/**
+ * 数据源隔离舱统计信息
+ */
+@Data
+public class BulkheadStats {
+    /**
+     * 数据源指纹
+     */
+    private String fingerprint;
+    
+    /**
+     * 允许同时执行的查询数
+     */
+    private int maxConcurrent;
+    
+    /**
+     * 正在执行的查询数
+     */
+    private int active;
+    
+    /**
+     * 正在排队的查询数
+     */
+    private int queued;
+    
+    /**
+     * 累计提交的查询数
+     */
+    private long submitted;
+    
+    /**
+     * 累计被拒绝的查询数(排队已满或等待超时)
+     */
+    private long rejected;
+    
+    /**
+     * 累计执行完成的查询数
+     */
+    private long completed;
+    
+    /**
+     * 平均排队时间(毫秒)
+     */
+    private double avgQueueMs;
+    
+    /**
+     * 最长排队时间(毫秒)
+     */
+    private double maxQueueMs;
+}
@@ -0,0 +1,59 @@
+package org.yubang.util.mcpdemo.model;
+
+import lombok.Data;
+
+/**
+ * 查询结果缓存统计信息
+ */
+@Data
+public class CacheStats {
+    /**
+     * 命中次数
+     */
+    private long hits;
+    
+    /**
+     * 未命中次数
+     */
+    private long misses;
+    
+    /**
+     * 命中率
+     */
+    private double hitRate;
+    
+    /**
+     * 等待其他线程加载同一查询而未重复查询数据库的次数
+     */
+    private long coalescedLoads;
+    
+    /**
+     * 因容量不足被淘汰的条目数
+     */
+    private long evictions;
+    
+    /**
+     * 因过期被移除的条目数
+     */
+    private long expirations;
+    
+    /**
+     * 被主动失效的条目数
+     */
+    private long invalidations;
+    
+    /**
+     * 当前条目数
+     */
+    private int entries;
+    
+    /**
+     * 当前占用字节数(估算)
+     */
+    private long bytes;
+    
+    /**
+     * 最大占用字节数
+     */
+    private long maxBytes;
+}
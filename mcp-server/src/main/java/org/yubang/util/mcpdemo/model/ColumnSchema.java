@@ -0,0 +1,44 @@
+package org.yubang.util.mcpdemo.model;
+
+import lombok.Data;
+
+/**
+ * 数据列结构信息
+ */
+@Data
+public class ColumnSchema {
+    /**
+     * 列名
+     */
+    private String name;
+    
+    /**
+     * 数据库类型名称
+     */
+    private String typeName;
+    
+    /**
+     * 列长度或数值精度
+     */
+    private Integer size;
+    
+    /**
+     * 小数位数
+     */
+    private Integer decimalDigits;
+    
+    /**
+     * 是否允许为NULL
+     */
+    private boolean nullable;
+    
+    /**
+     * 默认值
+     */
+    private String defaultValue;
+    
+    /**
+     * 列注释
+     */
+    private String remarks;
+}
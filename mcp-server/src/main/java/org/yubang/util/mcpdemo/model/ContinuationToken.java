@@ -0,0 +1,120 @@
+package org.yubang.util.mcpdemo.model;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 分页续传令牌
+ * 记录上一页最后一行的键值，下一次调用据此使用 key > ? 条件继续查询，
+ * 对调用方而言是不透明的字符串
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContinuationToken {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    
+    /**
+     * 分页键列名
+     */
+    private String keyColumn;
+    
+    /**
+     * 上一页最后一行的键值
+     */
+    private Object lastKey;
+    
+    /**
+     * 查询摘要，防止令牌被用于其他查询
+     */
+    private String queryHash;
+    
+    /**
+     * 键列的SQL类型(java.sql.Types)，键值以字符串形式保存时用于按原类型绑定，数值和字符串键为空
+     */
+    private Integer keySqlType;
+    
+    /**
+     * 根据上一页最后一行的键值创建令牌
+     * 数值和字符串原样保存；日期时间、UUID等类型保存为字符串，同时记录键列的SQL类型，
+     * 下一页按该类型绑定，PostgreSQL不会将varchar参数与timestamp、uuid列比较
+     *
+     * @param keyColumn 分页键列名
+     * @param key 最后一行的键值
+     * @param sqlType 键列的SQL类型
+     * @param queryHash 查询摘要
+     * @return 续传令牌
+     */
+    public static ContinuationToken of(String keyColumn, Object key, int sqlType, String queryHash) {
+        if (key == null || key instanceof Number || key instanceof String) {
+            return new ContinuationToken(keyColumn, key, queryHash, null);
+        }
+        // LocalDateTime的toString使用ISO格式，统一为Timestamp的格式以便还原
+        String value = key instanceof LocalDateTime ? Timestamp.valueOf((LocalDateTime) key).toString() : key.toString();
+        return new ContinuationToken(keyColumn, value, queryHash, sqlType);
+    }
+    
+    /**
+     * 获取用于绑定的键值，日期和时间戳还原为对应的JDBC类型，其他类型原样返回
+     */
+    public Object bindValue() {
+        if (keySqlType == null || !(lastKey instanceof String)) {
+            return lastKey;
+        }
+        String text = (String) lastKey;
+        try {
+            switch (keySqlType) {
+                case Types.DATE:
+                    return Date.valueOf(text);
+                case Types.TIMESTAMP:
+                case Types.TIMESTAMP_WITH_TIMEZONE:
+                    return Timestamp.valueOf(text);
+                default:
+                    return text;
+            }
+        } catch (IllegalArgumentException e) {
+            // 驱动返回的类型无法按JDBC格式还原时，由调用方按keySqlType绑定字符串
+            return text;
+        }
+    }
+    
+    /**
+     * 编码为URL安全的Base64字符串
+     */
+    public String encode() {
+        try {
+            byte[] json = MAPPER.writeValueAsBytes(this);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (Exception e) {
+            throw new IllegalStateException("续传令牌编码失败: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 解码续传令牌
+     *
+     * @param token 令牌字符串
+     * @return 续传令牌
+     * @throws IllegalArgumentException 令牌格式不正确
+     */
+    public static ContinuationToken decode(String token) {
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(token.getBytes(StandardCharsets.US_ASCII));
+            return MAPPER.readValue(json, ContinuationToken.class);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("无效的continuationToken");
+        }
+    }
+}
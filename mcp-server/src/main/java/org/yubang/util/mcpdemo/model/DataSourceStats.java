@@ -0,0 +1,85 @@
+package org.yubang.util.mcpdemo.model;
+
+import lombok.Data;
+
+/**
+ * 连接池统计信息
+ */
+@Data
+public class DataSourceStats {
+    /**
+     * 数据源指纹，由驱动、URL、用户名和密码计算得出
+     */
+    private String fingerprint;
+    
+    /**
+     * 数据库连接URL(不含查询参数)
+     */
+    private String url;
+    
+    /**
+     * 数据库用户名
+     */
+    private String username;
+    
+    /**
+     * 正在使用的连接数
+     */
+    private int activeConnections;
+    
+    /**
+     * 空闲连接数
+     */
+    private int idleConnections;
+    
+    /**
+     * 连接总数
+     */
+    private int totalConnections;
+    
+    /**
+     * 等待获取连接的线程数
+     */
+    private int threadsAwaitingConnection;
+    
+    /**
+     * 最大连接数
+     */
+    private int maximumPoolSize;
+    
+    /**
+     * 累计借出连接次数
+     */
+    private long borrowCount;
+    
+    /**
+     * 连接池创建时间戳
+     */
+    private long createdAt;
+    
+    /**
+     * 最近一次使用时间戳
+     */
+    private long lastUsedAt;
+    
+    /**
+     * 是否为命名数据源的常驻连接池，常驻连接池不会因空闲被回收
+     */
+    private boolean pinned;
+    
+    /**
+     * 估算的预编译语句缓存命中次数，按驱动的LRU规则模拟得出，并非驱动报告的数值；
+     * 只有开启了驱动语句缓存的MySQL连接池有值
+     */
+    private Long estimatedStatementCacheHits;
+    
+    /**
+     * 估算的预编译语句缓存未命中次数，只有MySQL连接池有值
+     */
+    private Long estimatedStatementCacheMisses;
+    
+    /**
+     * 估算的预编译语句缓存命中率，只有MySQL连接池有值
+     */
+    private Double estimatedStatementCacheHitRate;
+}
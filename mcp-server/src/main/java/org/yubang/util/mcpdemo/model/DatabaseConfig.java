@@ -2,11 +2,19 @@ package org.yubang.util.mcpdemo.model;
 
 import lombok.Data;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * 数据库连接配置类
  */
 @Data
 public class DatabaseConfig {
+    /**
+     * 服务端配置的命名数据源名称，指定后使用该数据源的连接信息，无需提供url和凭据
+     */
+    private String datasource;
+    
     /**
      * JDBC驱动类名
      */
@@ -27,6 +35,12 @@ public class DatabaseConfig {
      */
     private String password;
     
+    /**
+     * 只读副本URL列表，使用与主库相同的驱动和凭据
+     * 配置后查询在健康的副本间按未完成请求数最少的原则分配，副本均不可用时回退到主库
+     */
+    private List<String> replicaUrls;
+    
     /**
      * 要查询的表名
      */
@@ -36,4 +50,132 @@ public class DatabaseConfig {
      * SQL语句，如果为空则使用"SELECT * FROM tableName"
      */
     private String sql;
-} 
\ No newline at end of file
+    
+    /**
+     * SQL位置参数，按顺序绑定到SQL中的?占位符
+     */
+    private List<Object> params;
+    
+    /**
+     * SQL命名参数，绑定到SQL中的:name占位符，值为数组时展开用于IN条件
+     */
+    private Map<String, Object> namedParams;
+    
+    /**
+     * 是否使用预览模式，只返回tableName的少量样本行和估算总行数，不扫描全表
+     */
+    private boolean preview = false;
+    
+    /**
+     * 预览模式下返回的样本行数
+     */
+    private int sampleRows = 100;
+    
+    /**
+     * 预览模式的采样方式
+     * random - 在分区键取值范围内随机取行
+     * stratified - 将分区键取值范围均分为若干层，每层随机位置起取连续的若干行
+     */
+    private String sampleMode = "random";
+    
+    /**
+     * 增量查询的水位列，值需随数据写入单调递增(如自增ID、updated_at)
+     * 设置后只返回水位列大于上一次读到的水位值的行，服务端按客户端和查询记录水位；
+     * 自定义SQL中可以写带表别名的列(如o.updated_at)，外层过滤和排序按结果列名updated_at引用
+     */
+    private String watermarkColumn;
+    
+    /**
+     * 增量查询的查询键，为空时根据数据源、SQL、参数和水位列生成；同一客户端的不同轮询任务可用它区分水位
+     */
+    private String watermarkKey;
+    
+    /**
+     * 显式指定起始水位，优先于服务端记录的水位
+     */
+    private Object watermark;
+    
+    /**
+     * 是否清除已记录的水位，从头读取
+     */
+    private boolean resetWatermark = false;
+    
+    /**
+     * 是否使用流式模式
+     * true - 以只进游标逐批读取，并通过SSE连接以NDJSON分块推送给客户端，工具只返回汇总信息
+     * false - 一次性返回全部数据
+     */
+    private boolean stream = false;
+    
+    /**
+     * 流式模式下每次从数据库拉取的行数
+     */
+    private int fetchSize = 1000;
+    
+    /**
+     * 流式模式下每个NDJSON分块包含的行数
+     */
+    private int chunkRows = 500;
+    
+    /**
+     * 分页大小，大于0时开启键集分页，每次最多返回pageSize行
+     */
+    private int pageSize = 0;
+    
+    /**
+     * 分页键列名，值需单调递增且唯一；为空时使用tableName的单列主键
+     */
+    private String keyColumn;
+    
+    /**
+     * 续传令牌，传入上一页返回的nextToken以获取下一页
+     */
+    private String continuationToken;
+    
+    /**
+     * 并行扫描的分区数，大于1时按keyColumn(默认为单列主键)的取值范围切分为多个区间，
+     * 每个区间使用连接池中的一个连接并行读取；分区数不超过单个连接池的最大连接数，分区键为NULL的行不会被读取
+     */
+    private int parallelism = 0;
+    
+    /**
+     * 并行扫描时是否按分区键顺序合并结果
+     * true - 结果按分区键有序
+     * false - 各分区的数据按读取完成的顺序合并，不保证顺序
+     */
+    private boolean orderedMerge = true;
+    
+    /**
+     * 查询超时时间(秒)，为空时使用全局默认值，不能超过全局上限
+     */
+    private Integer queryTimeoutSeconds;
+    
+    /**
+     * 最多返回的行数，为空时使用全局默认值，不能超过全局上限；超出时结果被截断并标记truncated
+     */
+    private Long maxRows;
+    
+    /**
+     * 最多返回的结果字节数(按JSON序列化估算)，为空时使用全局默认值，不能超过全局上限
+     */
+    private Long maxBytes;
+    
+    /**
+     * 大对象列(BLOB/CLOB/TEXT)的处理方式，为空时使用全局默认值
+     * truncate - 超出lobMaxBytes的值只返回前lobMaxBytes
+     * hash - 只返回长度和SHA-256摘要
+     * spill - 超出lobMaxBytes的值写入临时文件，返回文件句柄
+     * full - 不做特殊处理，完整读取
+     */
+    private String lobMode;
+    
+    /**
+     * 大对象列每个值最多返回的长度，文本为字符数，二进制为字节数；为空时使用全局默认值，不能超过全局上限
+     */
+    private Integer lobMaxBytes;
+    
+    /**
+     * 查询结果缓存时间(秒)，为空时使用数据源或全局配置，0表示不使用缓存
+     */
+    private Long cacheTtlSeconds;
+}
\ No newline at end of file
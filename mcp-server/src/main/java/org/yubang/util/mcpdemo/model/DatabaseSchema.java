@@ -0,0 +1,36 @@
+package org.yubang.util.mcpdemo.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 数据库结构信息
+ */
+@Data
+public class DatabaseSchema {
+    /**
+     * 数据源指纹
+     */
+    private String fingerprint;
+    
+    /**
+     * 当前连接所在的catalog
+     */
+    private String catalog;
+    
+    /**
+     * 当前连接所在的schema(MySQL中为库名)
+     */
+    private String schema;
+    
+    /**
+     * 结构信息的加载时间戳
+     */
+    private long loadedAt;
+    
+    /**
+     * 表和视图
+     */
+    private List<TableSchema> tables;
+}
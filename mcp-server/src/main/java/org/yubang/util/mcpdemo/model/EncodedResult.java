@@ -0,0 +1,67 @@
+package org.yubang.util.mcpdemo.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * 已编码为JSON的查询结果
+ * 由ResultSetJsonEncoder直接从结果集写出，格式与QueryResult相同，序列化时原样输出
+ */
+@JsonSerialize(using = EncodedResult.Serializer.class)
+public class EncodedResult {
+
+    private final String json;
+    
+    private final int rowCount;
+    
+    private final boolean truncated;
+    
+    public EncodedResult(String json, int rowCount, boolean truncated) {
+        this.json = json;
+        this.rowCount = rowCount;
+        this.truncated = truncated;
+    }
+    
+    public String getJson() {
+        return json;
+    }
+    
+    public int getRowCount() {
+        return rowCount;
+    }
+    
+    public boolean isTruncated() {
+        return truncated;
+    }
+    
+    /**
+     * 估算占用的内存字节数
+     */
+    public long estimatedBytes() {
+        return 64 + json.length() * 2L;
+    }
+    
+    @Override
+    public String toString() {
+        return json;
+    }
+    
+    /**
+     * Jackson序列化器，直接输出已编码的JSON
+     */
+    public static class Serializer extends StdSerializer<EncodedResult> {
+        
+        public Serializer() {
+            super(EncodedResult.class);
+        }
+        
+        @Override
+        public void serialize(EncodedResult value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeRawValue(value.json);
+        }
+    }
+}
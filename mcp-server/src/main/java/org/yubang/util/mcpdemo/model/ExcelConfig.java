@@ -31,9 +31,9 @@ public class ExcelConfig {
     private Map<String, String> headerMapping;
     
     /**
-     * 是否返回Base64编码的Excel内容
+     * delivery为base64时，是否只返回Base64编码的Excel内容
      * true - 返回Base64字符串
-     * false - 返回二进制数据的Base64
+     * false - 返回包含文件名和Base64内容的JSON
      */
     private boolean returnBase64 = true;
     
@@ -48,4 +48,16 @@ public class ExcelConfig {
      * 只有当sql不为空时才需要
      */
     private DatabaseConfig databaseConfig;
+    
+    /**
+     * 是否使用流式导出(SXSSF)，内存中只保留最近的若干行，其余行写入临时文件
+     * 为空时使用服务端默认配置
+     */
+    private Boolean streaming;
+    
+    /**
+     * 返回方式：file(写入服务端临时文件并返回下载句柄)或base64(返回Base64编码的内容)
+     * 为空时使用服务端默认配置
+     */
+    private String delivery;
 } 
\ No newline at end of file
@@ -0,0 +1,67 @@
+package org.yubang.util.mcpdemo.model;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 异步导出任务状态
+ * 作为export_progress事件的内容推送给客户端，也由任务查询接口返回
+ */
+@Data
+public class ExportJobStatus {
+    /**
+     * 任务ID
+     */
+    private String jobId;
+    
+    /**
+     * 提交任务的工具调用ID
+     */
+    private String toolCallId;
+    
+    /**
+     * 任务状态：queued、running、completed、failed或cancelled
+     */
+    private String status;
+    
+    /**
+     * 已写入的数据行数
+     */
+    private long rowsWritten;
+    
+    /**
+     * 估算的总行数，无法估算时为空
+     */
+    private Long estimatedRows;
+    
+    /**
+     * 完成百分比，无法估算总行数时为空
+     */
+    private Double percent;
+    
+    /**
+     * 写入速度(行/秒)
+     */
+    private long rowsPerSecond;
+    
+    /**
+     * 按当前写入速度估算的剩余秒数，无法估算总行数时为空
+     */
+    private Long etaSeconds;
+    
+    /**
+     * 开始执行后经过的毫秒数，排队中为0
+     */
+    private long elapsedMs;
+    
+    /**
+     * 导出结果，包含fileName、handle、downloadUrl、size、rowCount和expiresInSeconds，仅completed时有值
+     */
+    private Map<String, Object> result;
+    
+    /**
+     * 失败或取消的原因
+     */
+    private String error;
+}
@@ -0,0 +1,133 @@
+package org.yubang.util.mcpdemo.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * 未完整返回的大对象(BLOB/CLOB/TEXT)值
+ * 按LOB处理方式，可能只包含截断后的前缀、内容摘要或溢出文件的句柄
+ *
+ * JSON格式: {"truncated":true,"value":"..."} / {"length":n,"sha256":"..."} / {"length":n,"handle":"..."}
+ */
+public final class LobValue {
+
+    /**
+     * 截断后的前缀，文本为String，二进制为byte[]
+     */
+    private final Object value;
+    
+    /**
+     * 原值的长度，文本为字符数，二进制为字节数；截断时未继续读取，长度未知
+     */
+    private final Long length;
+    
+    /**
+     * 原值的SHA-256摘要，文本按UTF-8编码计算
+     */
+    private final String sha256;
+    
+    /**
+     * 溢出文件的句柄
+     */
+    private final String handle;
+    
+    private LobValue(Object value, Long length, String sha256, String handle) {
+        this.value = value;
+        this.length = length;
+        this.sha256 = sha256;
+        this.handle = handle;
+    }
+    
+    public static LobValue truncated(Object prefix) {
+        return new LobValue(prefix, null, null, null);
+    }
+    
+    public static LobValue hashed(long length, String sha256) {
+        return new LobValue(null, length, sha256, null);
+    }
+    
+    public static LobValue spilled(long length, String handle) {
+        return new LobValue(null, length, null, handle);
+    }
+    
+    public Object getValue() {
+        return value;
+    }
+    
+    public Long getLength() {
+        return length;
+    }
+    
+    public String getSha256() {
+        return sha256;
+    }
+    
+    public String getHandle() {
+        return handle;
+    }
+    
+    /**
+     * 写出为JSON对象
+     */
+    void writeJson(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        if (value != null) {
+            generator.writeBooleanField("truncated", true);
+            generator.writeFieldName("value");
+            QueryResult.writeObject(generator, value);
+        }
+        if (length != null) {
+            generator.writeNumberField("length", length);
+        }
+        if (sha256 != null) {
+            generator.writeStringField("sha256", sha256);
+        }
+        if (handle != null) {
+            generator.writeStringField("handle", handle);
+        }
+        generator.writeEndObject();
+    }
+    
+    /**
+     * 估算序列化为JSON后的字节数
+     */
+    long jsonBytes() {
+        long bytes = 2;
+        if (value != null) {
+            bytes += 26 + QueryResult.estimateJsonBytes(value);
+        }
+        if (length != null) {
+            bytes += 10 + QueryResult.digits(length);
+        }
+        if (sha256 != null) {
+            bytes += 76;
+        }
+        if (handle != null) {
+            bytes += 12 + handle.length();
+        }
+        return bytes;
+    }
+    
+    /**
+     * 估算占用的内存字节数
+     */
+    long estimatedBytes() {
+        return 48 + QueryResult.estimateObjectBytes(value) + (sha256 != null ? 168 : 0)
+            + (handle != null ? 40 + handle.length() * 2L : 0);
+    }
+    
+    @Override
+    public String toString() {
+        if (value instanceof String) {
+            return value + "...";
+        }
+        if (handle != null) {
+            return "[" + length + "] " + handle;
+        }
+        if (sha256 != null) {
+            return "[" + length + "] sha256:" + sha256;
+        }
+        return "[truncated]";
+    }
+}
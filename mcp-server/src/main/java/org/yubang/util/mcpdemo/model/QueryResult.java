@@ -0,0 +1,860 @@
+package org.yubang.util.mcpdemo.model;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.yubang.util.mcpdemo.util.LobReader;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列式查询结果
+ * 所有行共用一份列名/类型表头，数据按列存储，数值类型使用基本类型数组，
+ * 避免每行一个HashMap以及数值装箱带来的内存和GC开销
+ *
+ * JSON格式: {"columns":[...],"types":[...],"rowCount":n,"nextToken":"...","truncated":true,"rowsSeen":n,
+ *           "costGuard":"...","sampleMethod":"...","estimatedTotalRows":n,"watermark":...,"rows":[[...],[...]]}
+ */
+@JsonSerialize(using = QueryResult.Serializer.class)
+public class QueryResult {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    
+    private static final int INITIAL_CAPACITY = 16;
+    
+    /**
+     * 列名
+     */
+    private final String[] columnNames;
+    
+    /**
+     * 列的数据库类型名称
+     */
+    private final String[] typeNames;
+    
+    /**
+     * 按列存储的数据
+     */
+    private final Column[] columns;
+    
+    /**
+     * 行数
+     */
+    private int rowCount;
+    
+    /**
+     * 分页查询时下一页的续传令牌，没有更多数据时为null
+     */
+    private String nextToken;
+    
+    /**
+     * 是否因超出行数或字节数预算而被截断
+     */
+    private boolean truncated;
+    
+    /**
+     * 因截断而读到但未返回的行数
+     */
+    private long skippedRows;
+    
+    /**
+     * 预览模式下的采样方式，非预览结果为null
+     */
+    private String sampleMethod;
+    
+    /**
+     * 预览模式下根据数据库统计信息估算的总行数，无法估算时为null
+     */
+    private Long estimatedTotalRows;
+    
+    /**
+     * 增量查询结束后的水位值，下一次增量查询从此处继续
+     */
+    private Object watermark;
+    
+    /**
+     * 是否为增量查询结果
+     */
+    private boolean incremental;
+    
+    /**
+     * 查询代价超出阈值而被限制返回行数时的原因
+     */
+    private String costGuard;
+    
+    private QueryResult(String[] columnNames, String[] typeNames, Column[] columns) {
+        this.columnNames = columnNames;
+        this.typeNames = typeNames;
+        this.columns = columns;
+    }
+    
+    /**
+     * 根据结果集元数据创建空的查询结果，列的存储方式按列类型选定一次
+     *
+     * @param metaData 结果集元数据
+     * @return 空的查询结果
+     * @throws SQLException 读取元数据失败
+     */
+    public static QueryResult fromMetaData(ResultSetMetaData metaData) throws SQLException {
+        return fromMetaData(metaData, null);
+    }
+    
+    /**
+     * 根据结果集元数据创建空的查询结果，大对象列通过LobReader以流的方式读取
+     *
+     * @param metaData 结果集元数据
+     * @param lobReader 大对象读取器，为null时按普通列读取
+     * @return 空的查询结果
+     * @throws SQLException 读取元数据失败
+     */
+    public static QueryResult fromMetaData(ResultSetMetaData metaData, LobReader lobReader) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        String[] columnNames = new String[columnCount];
+        String[] typeNames = new String[columnCount];
+        Column[] columns = new Column[columnCount];
+        
+        for (int i = 0; i < columnCount; i++) {
+            columnNames[i] = metaData.getColumnName(i + 1);
+            typeNames[i] = metaData.getColumnTypeName(i + 1);
+            columns[i] = lobReader != null && lobReader.handles(metaData, i + 1)
+                ? new LobColumn(lobReader, LobReader.isBinary(metaData, i + 1))
+                : createColumn(metaData, i + 1);
+        }
+        return new QueryResult(columnNames, typeNames, columns);
+    }
+    
+    /**
+     * 将行式数据转换为列式查询结果
+     * 列以第一行数据的字段为准
+     *
+     * @param rows 行式数据
+     * @return 查询结果
+     */
+    public static QueryResult fromRows(List<Map<String, Object>> rows) {
+        String[] columnNames = rows.isEmpty() ? new String[0] : rows.get(0).keySet().toArray(new String[0]);
+        String[] typeNames = new String[columnNames.length];
+        Column[] columns = new Column[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            columns[i] = new ObjectColumn();
+        }
+        
+        QueryResult result = new QueryResult(columnNames, typeNames, columns);
+        for (Map<String, Object> row : rows) {
+            for (int i = 0; i < columnNames.length; i++) {
+                ((ObjectColumn) columns[i]).add(row.get(columnNames[i]));
+            }
+            result.rowCount++;
+        }
+        return result;
+    }
+    
+    /**
+     * 读取结果集当前行并追加到结果中
+     *
+     * @param rs 已定位到某一行的结果集
+     * @throws SQLException 读取失败
+     */
+    public void readRow(ResultSet rs) throws SQLException {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].read(rs, i + 1);
+        }
+        rowCount++;
+    }
+    
+    /**
+     * 将另一个结构相同的查询结果的所有行追加到当前结果末尾
+     * 用于合并并行扫描各分区的结果
+     *
+     * @param other 列结构相同的查询结果
+     */
+    public void append(QueryResult other) {
+        if (other.columns.length != columns.length) {
+            throw new IllegalArgumentException("合并的查询结果列数不一致");
+        }
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].append(other.columns[i]);
+        }
+        rowCount += other.rowCount;
+        truncated |= other.truncated;
+        skippedRows += other.skippedRows;
+    }
+    
+    /**
+     * 标记结果因预算用尽而被截断，结果集中至少还有一行未返回
+     */
+    public void markTruncated() {
+        truncated = true;
+        skippedRows++;
+    }
+    
+    public boolean isTruncated() {
+        return truncated;
+    }
+    
+    /**
+     * 从结果集中读到的行数，包含因截断而未返回的行，截断时实际总行数不少于此值
+     */
+    public long getRowsSeen() {
+        return rowCount + skippedRows;
+    }
+    
+    /**
+     * 估算指定行序列化为JSON后的字节数
+     *
+     * @param row 行号
+     * @return 估算字节数
+     */
+    public long estimateRowJsonBytes(int row) {
+        // 方括号和逗号
+        long bytes = 1 + columns.length;
+        for (Column column : columns) {
+            bytes += column.jsonBytes(row);
+        }
+        return bytes;
+    }
+    
+    public int getRowCount() {
+        return rowCount;
+    }
+    
+    public int getColumnCount() {
+        return columns.length;
+    }
+    
+    public String[] getColumnNames() {
+        return columnNames;
+    }
+    
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+    
+    public Column getColumn(int column) {
+        return columns[column];
+    }
+    
+    /**
+     * 按列名查找列索引，忽略大小写
+     *
+     * @param columnName 列名
+     * @return 列索引，不存在时返回-1
+     */
+    public int indexOf(String columnName) {
+        for (int i = 0; i < columnNames.length; i++) {
+            if (columnNames[i].equalsIgnoreCase(columnName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    public String getNextToken() {
+        return nextToken;
+    }
+    
+    public void setNextToken(String nextToken) {
+        this.nextToken = nextToken;
+    }
+    
+    public String getSampleMethod() {
+        return sampleMethod;
+    }
+    
+    public void setSampleMethod(String sampleMethod) {
+        this.sampleMethod = sampleMethod;
+    }
+    
+    public Long getEstimatedTotalRows() {
+        return estimatedTotalRows;
+    }
+    
+    public void setEstimatedTotalRows(Long estimatedTotalRows) {
+        this.estimatedTotalRows = estimatedTotalRows;
+    }
+    
+    public String getCostGuard() {
+        return costGuard;
+    }
+    
+    public void setCostGuard(String costGuard) {
+        this.costGuard = costGuard;
+    }
+    
+    public Object getWatermark() {
+        return watermark;
+    }
+    
+    /**
+     * 设置增量查询的水位值，同时将结果标记为增量查询结果
+     */
+    public void setWatermark(Object watermark) {
+        this.watermark = watermark;
+        this.incremental = true;
+    }
+    
+    /**
+     * 只保留前rowCount行，去掉的行计入未返回的行数
+     *
+     * @param rowCount 保留的行数
+     */
+    public void truncateRows(int rowCount) {
+        if (rowCount >= this.rowCount) {
+            return;
+        }
+        for (Column column : columns) {
+            column.truncate(rowCount);
+        }
+        skippedRows += this.rowCount - rowCount;
+        this.rowCount = rowCount;
+    }
+    
+    /**
+     * 获取指定单元格的值，数值列会被装箱，批量处理时优先按列类型直接读取
+     */
+    public Object getValue(int row, int column) {
+        return columns[column].getValue(row);
+    }
+    
+    /**
+     * 估算结果占用的内存字节数
+     */
+    public long estimatedBytes() {
+        long bytes = 64;
+        for (int i = 0; i < columns.length; i++) {
+            bytes += 64 + columnNames[i].length() * 2L + columns[i].estimatedBytes();
+        }
+        return bytes;
+    }
+    
+    /**
+     * 直接编码为JSON字符串
+     */
+    public String toJson() {
+        StringWriter writer = new StringWriter(Math.max(64, rowCount * columns.length * 8));
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+            writeJson(generator);
+        } catch (IOException e) {
+            // StringWriter不会抛出IO异常
+            throw new IllegalStateException(e);
+        }
+        return writer.toString();
+    }
+    
+    /**
+     * 使用JsonGenerator直接写出JSON，各列按自身类型写值，不经过中间对象
+     *
+     * @param generator JSON生成器
+     * @throws IOException 写出失败
+     */
+    public void writeJson(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        
+        generator.writeArrayFieldStart("columns");
+        for (String columnName : columnNames) {
+            generator.writeString(columnName);
+        }
+        generator.writeEndArray();
+        
+        generator.writeArrayFieldStart("types");
+        for (String typeName : typeNames) {
+            generator.writeString(typeName);
+        }
+        generator.writeEndArray();
+        
+        generator.writeNumberField("rowCount", rowCount);
+        if (nextToken != null) {
+            generator.writeStringField("nextToken", nextToken);
+        }
+        if (truncated) {
+            generator.writeBooleanField("truncated", true);
+            generator.writeNumberField("rowsSeen", getRowsSeen());
+        }
+        if (costGuard != null) {
+            generator.writeStringField("costGuard", costGuard);
+        }
+        if (incremental) {
+            generator.writeFieldName("watermark");
+            writeObject(generator, watermark);
+        }
+        if (sampleMethod != null) {
+            generator.writeStringField("sampleMethod", sampleMethod);
+            if (estimatedTotalRows != null) {
+                generator.writeNumberField("estimatedTotalRows", estimatedTotalRows);
+            }
+        }
+        
+        generator.writeArrayFieldStart("rows");
+        for (int row = 0; row < rowCount; row++) {
+            generator.writeStartArray();
+            for (Column column : columns) {
+                column.writeJson(generator, row);
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+        
+        generator.writeEndObject();
+    }
+    
+    /**
+     * 根据列类型选择存储方式
+     */
+    private static Column createColumn(ResultSetMetaData metaData, int index) throws SQLException {
+        switch (metaData.getColumnType(index)) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return new LongColumn();
+            case Types.BIGINT:
+                // 无符号BIGINT可能超出long范围
+                return metaData.isSigned(index) ? new LongColumn() : new ObjectColumn();
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return new DoubleColumn();
+            case Types.BOOLEAN:
+                return new BooleanColumn();
+            default:
+                return new ObjectColumn();
+        }
+    }
+    
+    /**
+     * 按JSON类型写出单个值
+     */
+    static void writeObject(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else if (value instanceof BigInteger) {
+            generator.writeNumber((BigInteger) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            generator.writeNumber(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else if (value instanceof byte[]) {
+            generator.writeBinary((byte[]) value);
+        } else if (value instanceof LobValue) {
+            ((LobValue) value).writeJson(generator);
+        } else {
+            // 日期时间等类型使用其字符串形式
+            generator.writeString(value.toString());
+        }
+    }
+    
+    /**
+     * 估算单个对象值占用的内存字节数
+     */
+    static long estimateObjectBytes(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return 40 + ((String) value).length() * 2L;
+        }
+        if (value instanceof byte[]) {
+            return 16 + ((byte[]) value).length;
+        }
+        if (value instanceof LobValue) {
+            return ((LobValue) value).estimatedBytes();
+        }
+        return 32;
+    }
+    
+    /**
+     * 估算单个对象值序列化为JSON后的字节数
+     */
+    static long estimateJsonBytes(Object value) {
+        if (value == null) {
+            return 4;
+        }
+        if (value instanceof String) {
+            return ((String) value).length() + 2;
+        }
+        if (value instanceof byte[]) {
+            // Base64编码
+            return (((byte[]) value).length + 2) / 3 * 4 + 2;
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString().length();
+        }
+        if (value instanceof LobValue) {
+            return ((LobValue) value).jsonBytes();
+        }
+        return value.toString().length() + 2;
+    }
+    
+    /**
+     * 整数序列化后的字符数
+     */
+    static int digits(long value) {
+        if (value == Long.MIN_VALUE) {
+            return 20;
+        }
+        int digits = value < 0 ? 2 : 1;
+        long remaining = Math.abs(value);
+        while (remaining >= 10) {
+            remaining /= 10;
+            digits++;
+        }
+        return digits;
+    }
+    
+    /**
+     * 列存储
+     */
+    public abstract static class Column {
+        
+        /**
+         * 空值标记
+         */
+        protected final BitSet nulls = new BitSet();
+        
+        protected int size;
+        
+        public boolean isNull(int row) {
+            return nulls.get(row);
+        }
+        
+        public abstract Object getValue(int row);
+        
+        abstract void read(ResultSet rs, int index) throws SQLException;
+        
+        abstract void writeJson(JsonGenerator generator, int row) throws IOException;
+        
+        abstract long estimatedBytes();
+        
+        /**
+         * 估算指定行的值序列化为JSON后的字节数
+         */
+        abstract long jsonBytes(int row);
+        
+        /**
+         * 追加另一列的所有值，两列的存储方式必须相同
+         */
+        abstract void append(Column other);
+        
+        /**
+         * 只保留前rows行
+         */
+        void truncate(int rows) {
+            nulls.clear(rows, Math.max(rows, size));
+            size = rows;
+        }
+        
+        protected int grow(int capacity) {
+            return capacity < INITIAL_CAPACITY ? INITIAL_CAPACITY : capacity + (capacity >> 1);
+        }
+        
+        /**
+         * 追加另一列的空值标记，需在更新size之前调用
+         */
+        protected void appendNulls(Column other) {
+            for (int row = other.nulls.nextSetBit(0); row >= 0; row = other.nulls.nextSetBit(row + 1)) {
+                nulls.set(size + row);
+            }
+        }
+    }
+    
+    /**
+     * 整数列，使用long数组存储
+     */
+    public static class LongColumn extends Column {
+        private long[] values = new long[INITIAL_CAPACITY];
+        
+        public long getLong(int row) {
+            return values[row];
+        }
+        
+        @Override
+        public Object getValue(int row) {
+            return isNull(row) ? null : values[row];
+        }
+        
+        @Override
+        void read(ResultSet rs, int index) throws SQLException {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(size));
+            }
+            values[size] = rs.getLong(index);
+            if (rs.wasNull()) {
+                nulls.set(size);
+            }
+            size++;
+        }
+        
+        @Override
+        void writeJson(JsonGenerator generator, int row) throws IOException {
+            if (isNull(row)) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(values[row]);
+            }
+        }
+        
+        @Override
+        long jsonBytes(int row) {
+            return isNull(row) ? 4 : digits(values[row]);
+        }
+        
+        @Override
+        void append(Column other) {
+            LongColumn source = (LongColumn) other;
+            if (size + source.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(grow(values.length), size + source.size));
+            }
+            System.arraycopy(source.values, 0, values, size, source.size);
+            appendNulls(source);
+            size += source.size;
+        }
+        
+        @Override
+        long estimatedBytes() {
+            return 16 + values.length * 8L + nulls.size() / 8;
+        }
+    }
+    
+    /**
+     * 浮点数列，使用double数组存储
+     */
+    public static class DoubleColumn extends Column {
+        private double[] values = new double[INITIAL_CAPACITY];
+        
+        public double getDouble(int row) {
+            return values[row];
+        }
+        
+        @Override
+        public Object getValue(int row) {
+            return isNull(row) ? null : values[row];
+        }
+        
+        @Override
+        void read(ResultSet rs, int index) throws SQLException {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(size));
+            }
+            values[size] = rs.getDouble(index);
+            if (rs.wasNull()) {
+                nulls.set(size);
+            }
+            size++;
+        }
+        
+        @Override
+        void writeJson(JsonGenerator generator, int row) throws IOException {
+            if (isNull(row)) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(values[row]);
+            }
+        }
+        
+        @Override
+        long jsonBytes(int row) {
+            // 按double最长的文本表示估算
+            return isNull(row) ? 4 : 24;
+        }
+        
+        @Override
+        void append(Column other) {
+            DoubleColumn source = (DoubleColumn) other;
+            if (size + source.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(grow(values.length), size + source.size));
+            }
+            System.arraycopy(source.values, 0, values, size, source.size);
+            appendNulls(source);
+            size += source.size;
+        }
+        
+        @Override
+        long estimatedBytes() {
+            return 16 + values.length * 8L + nulls.size() / 8;
+        }
+    }
+    
+    /**
+     * 布尔列，使用位图存储
+     */
+    public static class BooleanColumn extends Column {
+        private final BitSet values = new BitSet();
+        
+        public boolean getBoolean(int row) {
+            return values.get(row);
+        }
+        
+        @Override
+        public Object getValue(int row) {
+            return isNull(row) ? null : values.get(row);
+        }
+        
+        @Override
+        void read(ResultSet rs, int index) throws SQLException {
+            boolean value = rs.getBoolean(index);
+            if (rs.wasNull()) {
+                nulls.set(size);
+            } else if (value) {
+                values.set(size);
+            }
+            size++;
+        }
+        
+        @Override
+        void writeJson(JsonGenerator generator, int row) throws IOException {
+            if (isNull(row)) {
+                generator.writeNull();
+            } else {
+                generator.writeBoolean(values.get(row));
+            }
+        }
+        
+        @Override
+        long jsonBytes(int row) {
+            if (isNull(row)) {
+                return 4;
+            }
+            return values.get(row) ? 4 : 5;
+        }
+        
+        @Override
+        void append(Column other) {
+            BooleanColumn source = (BooleanColumn) other;
+            for (int row = source.values.nextSetBit(0); row >= 0; row = source.values.nextSetBit(row + 1)) {
+                values.set(size + row);
+            }
+            appendNulls(source);
+            size += source.size;
+        }
+        
+        @Override
+        void truncate(int rows) {
+            values.clear(rows, Math.max(rows, size));
+            super.truncate(rows);
+        }
+        
+        @Override
+        long estimatedBytes() {
+            return 32 + (values.size() + nulls.size()) / 8;
+        }
+    }
+    
+    /**
+     * 其他类型的列，使用对象数组存储
+     */
+    public static class ObjectColumn extends Column {
+        private Object[] values = new Object[INITIAL_CAPACITY];
+        
+        private long valueBytes;
+        
+        @Override
+        public Object getValue(int row) {
+            return values[row];
+        }
+        
+        @Override
+        void read(ResultSet rs, int index) throws SQLException {
+            add(rs.getObject(index));
+        }
+        
+        void add(Object value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(size));
+            }
+            values[size] = value;
+            if (value == null) {
+                nulls.set(size);
+            }
+            valueBytes += estimateObjectBytes(value);
+            size++;
+        }
+        
+        @Override
+        void writeJson(JsonGenerator generator, int row) throws IOException {
+            writeObject(generator, values[row]);
+        }
+        
+        @Override
+        long jsonBytes(int row) {
+            return estimateJsonBytes(values[row]);
+        }
+        
+        @Override
+        void append(Column other) {
+            ObjectColumn source = (ObjectColumn) other;
+            if (size + source.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(grow(values.length), size + source.size));
+            }
+            System.arraycopy(source.values, 0, values, size, source.size);
+            appendNulls(source);
+            size += source.size;
+            valueBytes += source.valueBytes;
+        }
+        
+        @Override
+        void truncate(int rows) {
+            for (int row = rows; row < size; row++) {
+                valueBytes -= estimateObjectBytes(values[row]);
+                values[row] = null;
+            }
+            super.truncate(rows);
+        }
+        
+        @Override
+        long estimatedBytes() {
+            return 16 + values.length * 4L + valueBytes + nulls.size() / 8;
+        }
+    }
+    
+    /**
+     * 大对象列，通过LobReader以流的方式读取，值为完整的String/byte[]或LobValue
+     */
+    public static class LobColumn extends ObjectColumn {
+        private final LobReader lobReader;
+        
+        private final boolean binary;
+        
+        LobColumn(LobReader lobReader, boolean binary) {
+            this.lobReader = lobReader;
+            this.binary = binary;
+        }
+        
+        @Override
+        void read(ResultSet rs, int index) throws SQLException {
+            add(lobReader.read(rs, index, binary));
+        }
+    }
+    
+    /**
+     * Jackson序列化器，使Spring AI等基于Jackson的调用方同样使用直接编码
+     */
+    public static class Serializer extends StdSerializer<QueryResult> {
+        
+        public Serializer() {
+            super(QueryResult.class);
+        }
+        
+        @Override
+        public void serialize(QueryResult value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            value.writeJson(generator);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.yubang.util.mcpdemo.model;
+
+import lombok.Data;
+
+/**
+ * 只读副本健康状态
+ */
+@Data
+public class ReplicaStats {
+    /**
+     * 副本的数据源指纹
+     */
+    private String fingerprint;
+    
+    /**
+     * 副本URL(不含查询参数)
+     */
+    private String url;
+    
+    /**
+     * 是否健康，不健康的副本不会被分配查询，直到健康检查通过
+     */
+    private boolean healthy;
+    
+    /**
+     * 未完成的请求数(活动连接数+等待连接的线程数)
+     */
+    private int outstandingRequests;
+    
+    /**
+     * 累计分配到该副本的连接数
+     */
+    private long routedCount;
+    
+    /**
+     * 累计被标记为不健康的次数，标记后查询切换到其他副本或主库
+     */
+    private long failoverCount;
+    
+    /**
+     * 最近一次被标记为不健康的时间戳，健康时为0
+     */
+    private long downSince;
+    
+    /**
+     * 最近一次失败的错误信息
+     */
+    private String lastError;
+}
@@ -0,0 +1,226 @@
+package org.yubang.util.mcpdemo.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.yubang.util.mcpdemo.util.LobReader;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * 结果集JSON编码器
+ * 根据结果集元数据为每一列选定一次写值方式，读取时直接从ResultSet写入JsonGenerator，
+ * 不经过Map、List或中间JSON字符串
+ */
+public final class ResultSetJsonEncoder {
+
+    private final String[] columnNames;
+    
+    private final String[] typeNames;
+    
+    // 预先编码的字段名，逐行写出对象时避免重复转义
+    private final SerializedString[] fieldNames;
+    
+    private final ColumnWriter[] writers;
+    
+    private ResultSetJsonEncoder(String[] columnNames, String[] typeNames, ColumnWriter[] writers) {
+        this.columnNames = columnNames;
+        this.typeNames = typeNames;
+        this.writers = writers;
+        this.fieldNames = new SerializedString[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            fieldNames[i] = new SerializedString(columnNames[i]);
+        }
+    }
+    
+    /**
+     * 根据结果集元数据创建编码器
+     *
+     * @param metaData 结果集元数据
+     * @return 编码器
+     * @throws SQLException 读取元数据失败
+     */
+    public static ResultSetJsonEncoder forMetaData(ResultSetMetaData metaData) throws SQLException {
+        return forMetaData(metaData, null);
+    }
+    
+    /**
+     * 根据结果集元数据创建编码器，大对象列通过LobReader以流的方式读取
+     *
+     * @param metaData 结果集元数据
+     * @param lobReader 大对象读取器，为null时按普通列读取
+     * @return 编码器
+     * @throws SQLException 读取元数据失败
+     */
+    public static ResultSetJsonEncoder forMetaData(ResultSetMetaData metaData, LobReader lobReader) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        String[] columnNames = new String[columnCount];
+        String[] typeNames = new String[columnCount];
+        ColumnWriter[] writers = new ColumnWriter[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columnNames[i] = metaData.getColumnName(i + 1);
+            typeNames[i] = metaData.getColumnTypeName(i + 1);
+            writers[i] = lobReader != null && lobReader.handles(metaData, i + 1)
+                ? createLobWriter(lobReader, LobReader.isBinary(metaData, i + 1))
+                : createWriter(metaData, i + 1);
+        }
+        return new ResultSetJsonEncoder(columnNames, typeNames, writers);
+    }
+    
+    public String[] getColumnNames() {
+        return columnNames;
+    }
+    
+    /**
+     * 写出列名和类型字段，调用前需已开始一个JSON对象
+     */
+    public void writeHeader(JsonGenerator generator) throws IOException {
+        generator.writeArrayFieldStart("columns");
+        for (String columnName : columnNames) {
+            generator.writeString(columnName);
+        }
+        generator.writeEndArray();
+        
+        generator.writeArrayFieldStart("types");
+        for (String typeName : typeNames) {
+            generator.writeString(typeName);
+        }
+        generator.writeEndArray();
+    }
+    
+    /**
+     * 将结果集当前行写出为JSON数组
+     */
+    public void writeRowArray(JsonGenerator generator, ResultSet rs) throws IOException, SQLException {
+        generator.writeStartArray();
+        for (int i = 0; i < writers.length; i++) {
+            writers[i].write(generator, rs, i + 1);
+        }
+        generator.writeEndArray();
+    }
+    
+    /**
+     * 将结果集当前行写出为以列名为键的JSON对象
+     */
+    public void writeRowObject(JsonGenerator generator, ResultSet rs) throws IOException, SQLException {
+        generator.writeStartObject();
+        for (int i = 0; i < writers.length; i++) {
+            generator.writeFieldName(fieldNames[i]);
+            writers[i].write(generator, rs, i + 1);
+        }
+        generator.writeEndObject();
+    }
+    
+    /**
+     * 根据列类型选择写值方式，与QueryResult的列存储方式保持相同的JSON输出
+     */
+    private static ColumnWriter createWriter(ResultSetMetaData metaData, int index) throws SQLException {
+        switch (metaData.getColumnType(index)) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return (generator, rs, column) -> {
+                    int value = rs.getInt(column);
+                    if (rs.wasNull()) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeNumber(value);
+                    }
+                };
+            case Types.BIGINT:
+                // 无符号BIGINT可能超出long范围
+                if (!metaData.isSigned(index)) {
+                    return ResultSetJsonEncoder::writeObject;
+                }
+                return (generator, rs, column) -> {
+                    long value = rs.getLong(column);
+                    if (rs.wasNull()) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeNumber(value);
+                    }
+                };
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return (generator, rs, column) -> {
+                    double value = rs.getDouble(column);
+                    if (rs.wasNull()) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeNumber(value);
+                    }
+                };
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return (generator, rs, column) -> {
+                    BigDecimal value = rs.getBigDecimal(column);
+                    if (value == null) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeNumber(value);
+                    }
+                };
+            case Types.BOOLEAN:
+                return (generator, rs, column) -> {
+                    boolean value = rs.getBoolean(column);
+                    if (rs.wasNull()) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeBoolean(value);
+                    }
+                };
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return (generator, rs, column) -> {
+                    String value = rs.getString(column);
+                    if (value == null) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeString(value);
+                    }
+                };
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+                return (generator, rs, column) -> {
+                    byte[] value = rs.getBytes(column);
+                    if (value == null) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeBinary(value);
+                    }
+                };
+            default:
+                // 日期时间等类型使用驱动返回对象的字符串形式
+                return ResultSetJsonEncoder::writeObject;
+        }
+    }
+    
+    /**
+     * 大对象列的写值方式，与QueryResult.LobColumn输出相同的JSON
+     */
+    private static ColumnWriter createLobWriter(LobReader lobReader, boolean binary) {
+        return (generator, rs, column) -> QueryResult.writeObject(generator, lobReader.read(rs, column, binary));
+    }
+    
+    private static void writeObject(JsonGenerator generator, ResultSet rs, int column) throws IOException, SQLException {
+        QueryResult.writeObject(generator, rs.getObject(column));
+    }
+    
+    /**
+     * 单列的写值方式
+     */
+    @FunctionalInterface
+    private interface ColumnWriter {
+        void write(JsonGenerator generator, ResultSet rs, int column) throws IOException, SQLException;
+    }
+}
@@ -0,0 +1,42 @@
+package org.yubang.util.mcpdemo.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 数据表结构信息
+ */
+@Data
+public class TableSchema {
+    /**
+     * 表名
+     */
+    private String name;
+    
+    /**
+     * 类型，TABLE或VIEW
+     */
+    private String type;
+    
+    /**
+     * 表注释
+     */
+    private String remarks;
+    
+    /**
+     * 估算行数，来自数据库的统计信息，可能与实际行数有偏差，无法获取时为null
+     */
+    private Long estimatedRows;
+    
+    /**
+     * 主键列，按主键中的顺序排列
+     */
+    private List<String> primaryKey = new ArrayList<>();
+    
+    /**
+     * 列信息，按列在表中的顺序排列
+     */
+    private List<ColumnSchema> columns = new ArrayList<>();
+}
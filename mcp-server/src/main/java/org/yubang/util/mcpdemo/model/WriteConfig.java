@@ -0,0 +1,54 @@
+package org.yubang.util.mcpdemo.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量写入配置类
+ * 数据以行数组或NDJSON传入，按批次绑定到同一条预编译语句执行，每批提交一次
+ */
+@Data
+public class WriteConfig {
+    /**
+     * 数据库配置，提供连接信息，写入始终在主库执行
+     */
+    private DatabaseConfig databaseConfig;
+    
+    /**
+     * 要写入的表名，为空时使用databaseConfig中的tableName
+     */
+    private String tableName;
+    
+    /**
+     * 写入的列名，rows中每行的值按此顺序排列；
+     * 使用NDJSON对象行时可为空，此时取第一行的键
+     */
+    private List<String> columns;
+    
+    /**
+     * 要写入的行，每行是按columns顺序排列的值
+     */
+    private List<List<Object>> rows;
+    
+    /**
+     * NDJSON格式的行，每行一个JSON数组(按columns顺序)或JSON对象(键为列名)，
+     * 可直接使用流式查询推送的分块数据
+     */
+    private String ndjson;
+    
+    /**
+     * 写入方式：insert(默认)或upsert(主键或唯一键冲突时更新)
+     */
+    private String mode = "insert";
+    
+    /**
+     * upsert时判断冲突的键列，PostgreSQL和H2必须提供，MySQL使用表上的主键和唯一键
+     */
+    private List<String> keyColumns;
+    
+    /**
+     * 每批的行数，为空时使用服务端默认值，不能超过上限
+     */
+    private Integer batchSize;
+}
@@ -0,0 +1,50 @@
+package org.yubang.util.mcpdemo.model;
+
+import lombok.Data;
+
+/**
+ * 批量写入结果
+ */
+@Data
+public class WriteResult {
+    /**
+     * 写入的表名
+     */
+    private String tableName;
+    
+    /**
+     * 写入方式：insert或upsert
+     */
+    private String mode;
+    
+    /**
+     * 已提交的行数
+     */
+    private long rowsWritten;
+    
+    /**
+     * 数据库报告的影响行数，驱动不返回各行的影响行数时(如MySQL改写批量语句)为空；
+     * MySQL的upsert中被更新的行计为2
+     */
+    private Long affectedRows;
+    
+    /**
+     * 已提交的批次数
+     */
+    private int batches;
+    
+    /**
+     * 每批的行数
+     */
+    private int batchSize;
+    
+    /**
+     * 总耗时(毫秒)
+     */
+    private long elapsedMs;
+    
+    /**
+     * 写入速度(行/秒)
+     */
+    private double rowsPerSecond;
+}
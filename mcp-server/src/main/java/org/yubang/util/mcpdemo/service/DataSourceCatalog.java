@@ -0,0 +1,116 @@
+package org.yubang.util.mcpdemo.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.yubang.util.mcpdemo.config.DatabaseProperties;
+import org.yubang.util.mcpdemo.model.DatabaseConfig;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 命名数据源目录
+ * 保存application.properties中定义的数据源，工具调用通过名称引用，连接信息不经过工具参数；
+ * 启动时预先创建并预热这些数据源的连接池
+ */
+@Service
+public class DataSourceCatalog {
+    private static final Logger log = LoggerFactory.getLogger(DataSourceCatalog.class);
+    
+    private final Map<String, DatabaseProperties.Datasource> datasources;
+    
+    private final DataSourceRegistry dataSourceRegistry;
+    
+    public DataSourceCatalog(DatabaseProperties properties, DataSourceRegistry dataSourceRegistry) {
+        this.datasources = properties.getDatasources();
+        this.dataSourceRegistry = dataSourceRegistry;
+    }
+    
+    /**
+     * 启动时并行预热所有命名数据源，预热失败只记录日志，不影响启动
+     */
+    @PostConstruct
+    public void warmUp() throws InterruptedException {
+        long start = System.currentTimeMillis();
+        List<Thread> threads = new ArrayList<>();
+        for (Map.Entry<String, DatabaseProperties.Datasource> entry : datasources.entrySet()) {
+            DatabaseProperties.Datasource definition = entry.getValue();
+            if (!definition.isWarmUp()) {
+                continue;
+            }
+            threads.add(Thread.ofVirtual().name("warm-up-" + entry.getKey()).start(() -> {
+                try {
+                    dataSourceRegistry.warmUp(toConfig(definition), definition.getMinimumIdle(),
+                        definition.getValidationQuery());
+                } catch (SQLException | RuntimeException e) {
+                    log.warn("命名数据源 {} 预热失败，将在首次调用时重新连接: {}", entry.getKey(), e.getMessage());
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (!threads.isEmpty()) {
+            log.info("命名数据源预热完成，共 {} 个，用时 {}ms", threads.size(), System.currentTimeMillis() - start);
+        }
+    }
+    
+    /**
+     * 将调用参数中引用的命名数据源展开为连接信息
+     * 指定了datasource时，连接信息一律以服务端定义为准，调用参数中的url和凭据被忽略
+     *
+     * @param config 数据库配置信息
+     * @return 展开后的同一个配置对象
+     * @throws IllegalArgumentException 数据源未定义
+     */
+    public DatabaseConfig resolve(DatabaseConfig config) {
+        String name = config.getDatasource();
+        if (name == null || name.trim().isEmpty()) {
+            return config;
+        }
+        DatabaseProperties.Datasource definition = datasources.get(name.trim());
+        if (definition == null) {
+            throw new IllegalArgumentException("未定义的数据源: " + name + "，可用的数据源: " + datasources.keySet());
+        }
+        config.setDriverClassName(definition.getDriverClassName());
+        config.setUrl(definition.getUrl());
+        config.setUsername(definition.getUsername());
+        config.setPassword(definition.getPassword());
+        config.setReplicaUrls(definition.getReplicaUrls());
+        return config;
+    }
+    
+    /**
+     * 列出所有命名数据源，不包含凭据
+     *
+     * @return 数据源名称、指纹及副本数
+     */
+    public List<Map<String, Object>> list() {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Map.Entry<String, DatabaseProperties.Datasource> entry : datasources.entrySet()) {
+            DatabaseProperties.Datasource definition = entry.getValue();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("name", entry.getKey());
+            item.put("fingerprint", dataSourceRegistry.fingerprint(toConfig(definition)));
+            item.put("replicas", definition.getReplicaUrls().size());
+            item.put("warmUp", definition.isWarmUp());
+            list.add(item);
+        }
+        return list;
+    }
+    
+    private DatabaseConfig toConfig(DatabaseProperties.Datasource definition) {
+        DatabaseConfig config = new DatabaseConfig();
+        config.setDriverClassName(definition.getDriverClassName());
+        config.setUrl(definition.getUrl());
+        config.setUsername(definition.getUsername());
+        config.setPassword(definition.getPassword());
+        config.setReplicaUrls(definition.getReplicaUrls());
+        return config;
+    }
+}
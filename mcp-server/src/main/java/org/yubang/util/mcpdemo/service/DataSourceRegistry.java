@@ -0,0 +1,670 @@
+package org.yubang.util.mcpdemo.service;
+
+import cn.hutool.crypto.SecureUtil;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.yubang.util.mcpdemo.config.DatabaseProperties;
+import org.yubang.util.mcpdemo.model.DataSourceStats;
+import org.yubang.util.mcpdemo.model.DatabaseConfig;
+import org.yubang.util.mcpdemo.model.ReplicaStats;
+import org.yubang.util.mcpdemo.util.SqlDialect;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 数据源注册表
+ * 按数据源指纹缓存长期存在的Hikari连接池，避免每次工具调用都重新建立数据库连接；
+ * 配置了只读副本的数据源，只读查询在健康的副本之间分配
+ */
+@Service
+public class DataSourceRegistry {
+    private static final Logger log = LoggerFactory.getLogger(DataSourceRegistry.class);
+    
+    private final DatabaseProperties.Pool poolProperties;
+    
+    private final DatabaseProperties.Replica replicaProperties;
+    
+    // 指纹 -> 连接池
+    private final Map<String, PooledDataSource> pools = new ConcurrentHashMap<>();
+    
+    // 只读副本指纹 -> 副本健康状态
+    private final Map<String, Replica> replicas = new ConcurrentHashMap<>();
+    
+    // 物理连接 -> 所属连接池，预编译统计记录在连接实际所在的连接池上
+    private final Map<Connection, PooledDataSource> connectionOwners =
+        Collections.synchronizedMap(new WeakHashMap<>());
+    
+    // 空闲连接池回收任务执行器
+    private ScheduledExecutorService evictionExecutor;
+    
+    public DataSourceRegistry(DatabaseProperties properties) {
+        this.poolProperties = properties.getPool();
+        this.replicaProperties = properties.getReplica();
+    }
+    
+    @PostConstruct
+    public void init() {
+        evictionExecutor = Executors.newSingleThreadScheduledExecutor();
+        evictionExecutor.scheduleAtFixedRate(
+            this::evictIdlePools,
+            poolProperties.getEvictionIntervalMs(),
+            poolProperties.getEvictionIntervalMs(),
+            TimeUnit.MILLISECONDS
+        );
+        evictionExecutor.scheduleWithFixedDelay(
+            this::checkReplicas,
+            replicaProperties.getHealthCheckIntervalMs(),
+            replicaProperties.getHealthCheckIntervalMs(),
+            TimeUnit.MILLISECONDS
+        );
+        log.info("数据源注册表初始化完成，最大连接池数: {}, 最大连接总数: {}",
+            poolProperties.getMaxPools(), poolProperties.getMaxTotalConnections());
+    }
+    
+    @PreDestroy
+    public void destroy() {
+        if (evictionExecutor != null) {
+            evictionExecutor.shutdownNow();
+        }
+        pools.values().forEach(PooledDataSource::close);
+        pools.clear();
+        log.info("数据源注册表已关闭");
+    }
+    
+    /**
+     * 从对应数据源的连接池中获取连接
+     * 连接池不存在时按需创建
+     *
+     * @param config 数据库配置信息
+     * @return 数据库连接，使用完毕后需关闭以归还连接池
+     * @throws SQLException 获取连接失败或连接池数量达到上限
+     */
+    public Connection getConnection(DatabaseConfig config) throws SQLException {
+        return borrow(config);
+    }
+    
+    /**
+     * 预先创建并预热数据源及其只读副本的连接池
+     * 连接池保持指定数量的最小空闲连接，并被标记为常驻，不会因空闲被回收；
+     * 预热时同时借出minimumIdle个连接逐一校验，保证首次调用时已有建立好的连接。
+     * 副本预热失败时只将其标记为不健康，由健康检查负责恢复
+     *
+     * @param config 数据库配置信息
+     * @param minimumIdle 最小空闲连接数
+     * @param validationQuery 校验连接的SQL，为空时使用isValid校验
+     * @throws SQLException 主库建立或校验连接失败
+     */
+    public void warmUp(DatabaseConfig config, int minimumIdle, String validationQuery) throws SQLException {
+        int idle = Math.max(0, Math.min(minimumIdle, poolProperties.getMaximumPoolSize()));
+        warmUpPool(config, idle, validationQuery);
+        
+        if (config.getReplicaUrls() == null) {
+            return;
+        }
+        for (String url : config.getReplicaUrls()) {
+            if (url == null || url.trim().isEmpty()) {
+                continue;
+            }
+            DatabaseConfig replicaConfig = replicaConfig(config, url.trim());
+            Replica replica = replicas.computeIfAbsent(fingerprint(replicaConfig),
+                key -> new Replica(key, replicaConfig));
+            try {
+                warmUpPool(replicaConfig, idle, validationQuery);
+            } catch (SQLException e) {
+                replica.markDown(e);
+                log.warn("只读副本 {} 预热失败: {}", replica.url, e.getMessage());
+            }
+        }
+    }
+    
+    private void warmUpPool(DatabaseConfig config, int idle, String validationQuery) throws SQLException {
+        PooledDataSource pool = getOrCreatePool(config, idle);
+        pool.pinned = true;
+        
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < Math.max(1, idle); i++) {
+                Connection connection = pool.dataSource.getConnection();
+                connections.add(connection);
+                validate(connection, validationQuery);
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+        log.info("连接池 {} 预热完成，url: {}, 已建立连接数: {}", pool.fingerprint, pool.url, connections.size());
+    }
+    
+    private void validate(Connection connection, String validationQuery) throws SQLException {
+        if (validationQuery == null || validationQuery.trim().isEmpty()) {
+            if (!connection.isValid(replicaProperties.getHealthCheckTimeoutSeconds())) {
+                throw new SQLException("连接校验失败");
+            }
+            return;
+        }
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(validationQuery);
+        }
+    }
+    
+    /**
+     * 获取用于只读查询的连接
+     * 配置了只读副本时，在健康的副本中选择未完成请求最少的一个；从副本获取连接失败时将其标记为不健康
+     * 并尝试下一个，所有副本都不可用时回退到主库
+     *
+     * @param config 数据库配置信息
+     * @return 数据库连接，使用完毕后需关闭以归还连接池
+     * @throws SQLException 获取连接失败
+     */
+    public Connection getReadConnection(DatabaseConfig config) throws SQLException {
+        List<String> replicaUrls = config.getReplicaUrls();
+        if (replicaUrls == null || replicaUrls.isEmpty()) {
+            return borrow(config);
+        }
+        
+        long now = System.currentTimeMillis();
+        List<Replica> candidates = new ArrayList<>(replicaUrls.size());
+        for (String url : replicaUrls) {
+            if (url == null || url.trim().isEmpty()) {
+                continue;
+            }
+            DatabaseConfig replicaConfig = replicaConfig(config, url.trim());
+            Replica replica = replicas.computeIfAbsent(fingerprint(replicaConfig),
+                key -> new Replica(key, replicaConfig));
+            replica.lastRequestedAt = now;
+            if (replica.healthy) {
+                candidates.add(replica);
+            }
+        }
+        
+        // 先打乱顺序，未完成请求数相同的副本之间随机分配
+        Collections.shuffle(candidates);
+        candidates.sort(Comparator.comparingInt(this::outstandingRequests));
+        for (Replica replica : candidates) {
+            try {
+                Connection connection = borrow(replica.config);
+                replica.routedCount.increment();
+                return connection;
+            } catch (SQLException e) {
+                replica.markDown(e);
+                log.warn("只读副本 {} 获取连接失败，已切换到其他数据源: {}", replica.url, e.getMessage());
+            }
+        }
+        
+        if (!replicaProperties.isFallbackToPrimary()) {
+            throw new SQLException("没有可用的只读副本");
+        }
+        return borrow(config);
+    }
+    
+    private Connection borrow(DatabaseConfig config) throws SQLException {
+        PooledDataSource pool = getOrCreatePool(config);
+        Connection connection;
+        try {
+            connection = pool.dataSource.getConnection();
+        } catch (SQLException e) {
+            // 连接池可能刚好被回收，重新获取一次
+            if (!pool.dataSource.isClosed()) {
+                throw e;
+            }
+            pool = getOrCreatePool(config);
+            connection = pool.dataSource.getConnection();
+        }
+        pool.borrowCount.increment();
+        pool.lastUsedAt = System.currentTimeMillis();
+        connectionOwners.put(connection.unwrap(Connection.class), pool);
+        return connection;
+    }
+    
+    /**
+     * 在连接上预编译SQL
+     * 驱动开启了语句缓存(MySQL的cachePrepStmts)时，按驱动的LRU规则在每个物理连接上模拟缓存，
+     * 估算命中次数；命中的语句无需再次在数据库端解析和生成执行计划
+     *
+     * @param config 数据库配置信息
+     * @param connection 从本注册表获取的连接
+     * @param sql 只包含位置参数的SQL
+     * @param resultSetType 结果集类型
+     * @param resultSetConcurrency 结果集并发类型
+     * @return 预编译语句
+     * @throws SQLException 预编译失败
+     */
+    public PreparedStatement prepareStatement(DatabaseConfig config, Connection connection, String sql,
+                                              int resultSetType, int resultSetConcurrency) throws SQLException {
+        Connection physicalConnection = connection.unwrap(Connection.class);
+        PooledDataSource pool = connectionOwners.get(physicalConnection);
+        if (pool != null) {
+            pool.recordPrepare(physicalConnection, sql,
+                poolProperties.getPrepStmtCacheSize(), poolProperties.getPrepStmtCacheSqlLimit());
+        }
+        return connection.prepareStatement(sql, resultSetType, resultSetConcurrency);
+    }
+    
+    /**
+     * 在连接上预编译SQL，使用只进只读结果集
+     *
+     * @param config 数据库配置信息
+     * @param connection 从本注册表获取的连接
+     * @param sql 只包含位置参数的SQL
+     * @return 预编译语句
+     * @throws SQLException 预编译失败
+     */
+    public PreparedStatement prepareStatement(DatabaseConfig config, Connection connection, String sql) throws SQLException {
+        return prepareStatement(config, connection, sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    }
+    
+    /**
+     * 计算数据源指纹
+     * 密码参与计算，保证不同凭据不会共用同一个连接池
+     *
+     * @param config 数据库配置信息
+     * @return 数据源指纹
+     */
+    public String fingerprint(DatabaseConfig config) {
+        String raw = config.getDriverClassName() + "\n" + config.getUrl() + "\n"
+            + config.getUsername() + "\n" + config.getPassword();
+        return SecureUtil.sha256(raw).substring(0, 16);
+    }
+    
+    /**
+     * 获取所有连接池的统计信息
+     *
+     * @return 连接池统计信息列表
+     */
+    public List<DataSourceStats> getStats() {
+        List<DataSourceStats> statsList = new ArrayList<>();
+        for (PooledDataSource pool : pools.values()) {
+            statsList.add(pool.toStats());
+        }
+        return statsList;
+    }
+    
+    /**
+     * 获取所有只读副本的健康状态
+     *
+     * @return 副本健康状态列表
+     */
+    public List<ReplicaStats> getReplicaStats() {
+        List<ReplicaStats> statsList = new ArrayList<>();
+        for (Replica replica : replicas.values()) {
+            statsList.add(replica.toStats(outstandingRequests(replica)));
+        }
+        return statsList;
+    }
+    
+    /**
+     * 关闭并移除指定的连接池
+     *
+     * @param fingerprint 数据源指纹
+     * @return 是否存在并已移除
+     */
+    public boolean evict(String fingerprint) {
+        PooledDataSource pool;
+        synchronized (this) {
+            pool = pools.remove(fingerprint);
+        }
+        if (pool == null) {
+            return false;
+        }
+        pool.close();
+        log.info("已移除连接池: {}", fingerprint);
+        return true;
+    }
+    
+    private PooledDataSource getOrCreatePool(DatabaseConfig config) throws SQLException {
+        return getOrCreatePool(config, poolProperties.getMinimumIdle());
+    }
+    
+    private PooledDataSource getOrCreatePool(DatabaseConfig config, int minimumIdle) throws SQLException {
+        String fingerprint = fingerprint(config);
+        PooledDataSource pool = pools.get(fingerprint);
+        if (pool != null) {
+            return pool;
+        }
+        
+        synchronized (this) {
+            pool = pools.get(fingerprint);
+            if (pool != null) {
+                return pool;
+            }
+            
+            // 数量或连接总数超限时，先尝试回收最久未使用的空闲连接池
+            int poolSize = poolProperties.getMaximumPoolSize();
+            while (pools.size() >= poolProperties.getMaxPools()
+                    || allocatedConnections() + poolSize > poolProperties.getMaxTotalConnections()) {
+                if (!evictLeastRecentlyUsedIdlePool()) {
+                    throw new SQLException("连接池数量已达上限，当前连接池数: " + pools.size()
+                        + "，已分配连接数: " + allocatedConnections());
+                }
+            }
+            
+            pool = new PooledDataSource(fingerprint, config, createDataSource(fingerprint, config, minimumIdle));
+            pools.put(fingerprint, pool);
+            log.info("已创建连接池: {}, url: {}, 当前连接池数: {}", fingerprint, pool.url, pools.size());
+            return pool;
+        }
+    }
+    
+    private HikariDataSource createDataSource(String fingerprint, DatabaseConfig config, int minimumIdle) {
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setPoolName("mcp-" + fingerprint);
+        hikariConfig.setDriverClassName(config.getDriverClassName());
+        hikariConfig.setJdbcUrl(config.getUrl());
+        hikariConfig.setUsername(config.getUsername());
+        hikariConfig.setPassword(config.getPassword());
+        hikariConfig.setMaximumPoolSize(poolProperties.getMaximumPoolSize());
+        hikariConfig.setMinimumIdle(minimumIdle);
+        hikariConfig.setIdleTimeout(poolProperties.getIdleTimeoutMs());
+        hikariConfig.setMaxLifetime(poolProperties.getMaxLifetimeMs());
+        hikariConfig.setConnectionTimeout(poolProperties.getConnectionTimeoutMs());
+        // 创建连接池时不立即建立连接，避免在注册表锁内等待数据库
+        hikariConfig.setInitializationFailTimeout(-1);
+        if (SqlDialect.fromUrl(config.getUrl()) == SqlDialect.MYSQL) {
+            // 开启服务端预编译和每个连接的语句缓存，重复的查询结构跳过解析和生成执行计划
+            hikariConfig.addDataSourceProperty("useServerPrepStmts", "true");
+            hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
+            hikariConfig.addDataSourceProperty("prepStmtCacheSize", String.valueOf(poolProperties.getPrepStmtCacheSize()));
+            hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", String.valueOf(poolProperties.getPrepStmtCacheSqlLimit()));
+            // 批量写入时驱动将一批INSERT改写为一条多值语句，减少网络往返
+            hikariConfig.addDataSourceProperty("rewriteBatchedStatements", "true");
+        }
+        return new HikariDataSource(hikariConfig);
+    }
+    
+    /**
+     * 副本的连接配置，驱动和凭据与主库相同
+     */
+    private DatabaseConfig replicaConfig(DatabaseConfig config, String url) {
+        DatabaseConfig replicaConfig = new DatabaseConfig();
+        replicaConfig.setDriverClassName(config.getDriverClassName());
+        replicaConfig.setUrl(url);
+        replicaConfig.setUsername(config.getUsername());
+        replicaConfig.setPassword(config.getPassword());
+        return replicaConfig;
+    }
+    
+    private int outstandingRequests(Replica replica) {
+        PooledDataSource pool = pools.get(replica.fingerprint);
+        return pool == null ? 0 : pool.outstandingRequests();
+    }
+    
+    /**
+     * 定时检查只读副本的健康状态
+     * 不健康的副本总是检查，通过后重新参与分配；健康的副本只在连接池存在时检查，不为检查而保持连接池存活。
+     * 检查在虚拟线程上进行，数据库无响应时不会阻塞回收任务
+     */
+    private void checkReplicas() {
+        long now = System.currentTimeMillis();
+        for (Replica replica : replicas.values()) {
+            // 长时间没有查询再使用的副本不再检查
+            if (now - replica.lastRequestedAt > poolProperties.getPoolIdleEvictMs()) {
+                replicas.remove(replica.fingerprint, replica);
+                continue;
+            }
+            if (replica.checking.compareAndSet(false, true)) {
+                Thread.ofVirtual().name("replica-check-" + replica.fingerprint).start(() -> {
+                    try {
+                        checkReplica(replica);
+                    } finally {
+                        replica.checking.set(false);
+                    }
+                });
+            }
+        }
+    }
+    
+    private void checkReplica(Replica replica) {
+        try {
+            PooledDataSource pool = replica.healthy ? pools.get(replica.fingerprint) : getOrCreatePool(replica.config);
+            if (pool == null) {
+                return;
+            }
+            // 直接从连接池获取连接，不更新使用时间，不影响空闲连接池的回收
+            try (Connection connection = pool.dataSource.getConnection()) {
+                if (!connection.isValid(replicaProperties.getHealthCheckTimeoutSeconds())) {
+                    throw new SQLException("连接校验失败");
+                }
+            }
+            if (!replica.healthy) {
+                replica.markUp();
+                log.info("只读副本 {} 健康检查通过，重新参与分配", replica.url);
+            }
+        } catch (SQLException e) {
+            if (replica.healthy) {
+                log.warn("只读副本 {} 健康检查失败: {}", replica.url, e.getMessage());
+            }
+            replica.markDown(e);
+        }
+    }
+    
+    private int allocatedConnections() {
+        int total = 0;
+        for (PooledDataSource pool : pools.values()) {
+            total += pool.dataSource.getMaximumPoolSize();
+        }
+        return total;
+    }
+    
+    /**
+     * 回收最久未使用且没有活动连接的连接池
+     */
+    private boolean evictLeastRecentlyUsedIdlePool() {
+        PooledDataSource candidate = null;
+        for (PooledDataSource pool : pools.values()) {
+            if (!pool.pinned && pool.activeConnections() == 0
+                    && (candidate == null || pool.lastUsedAt < candidate.lastUsedAt)) {
+                candidate = pool;
+            }
+        }
+        if (candidate == null) {
+            return false;
+        }
+        pools.remove(candidate.fingerprint);
+        candidate.close();
+        log.info("连接池数量超限，已回收最久未使用的连接池: {}", candidate.fingerprint);
+        return true;
+    }
+    
+    /**
+     * 定时回收长时间未使用的连接池
+     */
+    private void evictIdlePools() {
+        long now = System.currentTimeMillis();
+        for (PooledDataSource pool : pools.values()) {
+            if (!pool.pinned && now - pool.lastUsedAt > poolProperties.getPoolIdleEvictMs()
+                    && pool.activeConnections() == 0) {
+                synchronized (this) {
+                    if (pools.remove(pool.fingerprint, pool)) {
+                        pool.close();
+                        log.info("连接池 {} 已空闲 {}ms，已关闭", pool.fingerprint, now - pool.lastUsedAt);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * 注册表中的单个连接池
+     */
+    private static class PooledDataSource {
+        private final String fingerprint;
+        private final String url;
+        private final String username;
+        private final HikariDataSource dataSource;
+        private final long createdAt = System.currentTimeMillis();
+        private final LongAdder borrowCount = new LongAdder();
+        // 连接是否开启了驱动的语句缓存，只有开启时才估算命中情况
+        private final boolean statementCache;
+        private final LongAdder statementCacheHits = new LongAdder();
+        private final LongAdder statementCacheMisses = new LongAdder();
+        // 物理连接 -> 该连接上缓存的SQL，与驱动的语句缓存一样按LRU淘汰，驱动实际的缓存内容无法读取
+        private final Map<Connection, LinkedHashMap<String, Boolean>> preparedStatements =
+            Collections.synchronizedMap(new WeakHashMap<>());
+        private volatile long lastUsedAt = createdAt;
+        // 命名数据源的常驻连接池，不会因空闲被回收
+        private volatile boolean pinned;
+        
+        PooledDataSource(String fingerprint, DatabaseConfig config, HikariDataSource dataSource) {
+            this.fingerprint = fingerprint;
+            this.url = stripQuery(config.getUrl());
+            this.username = config.getUsername();
+            this.dataSource = dataSource;
+            // 与createDataSource保持一致，只有MySQL连接开启了cachePrepStmts
+            this.statementCache = SqlDialect.fromUrl(config.getUrl()) == SqlDialect.MYSQL;
+        }
+        
+        void recordPrepare(Connection physicalConnection, String sql, int cacheSize, int sqlLimit) {
+            if (!statementCache) {
+                return;
+            }
+            // 超过长度限制的语句不会被驱动缓存
+            if (sql.length() > sqlLimit) {
+                statementCacheMisses.increment();
+                return;
+            }
+            LinkedHashMap<String, Boolean> cached = preparedStatements.computeIfAbsent(physicalConnection,
+                key -> new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                        return size() > cacheSize;
+                    }
+                });
+            // 物理连接同一时刻只会被一个线程使用
+            if (cached.put(sql, Boolean.TRUE) != null) {
+                statementCacheHits.increment();
+            } else {
+                statementCacheMisses.increment();
+            }
+        }
+        
+        int activeConnections() {
+            HikariPoolMXBean mxBean = dataSource.getHikariPoolMXBean();
+            return mxBean == null ? 0 : mxBean.getActiveConnections();
+        }
+        
+        int outstandingRequests() {
+            HikariPoolMXBean mxBean = dataSource.getHikariPoolMXBean();
+            return mxBean == null ? 0 : mxBean.getActiveConnections() + mxBean.getThreadsAwaitingConnection();
+        }
+        
+        DataSourceStats toStats() {
+            DataSourceStats stats = new DataSourceStats();
+            stats.setFingerprint(fingerprint);
+            stats.setUrl(url);
+            stats.setUsername(username);
+            stats.setMaximumPoolSize(dataSource.getMaximumPoolSize());
+            stats.setBorrowCount(borrowCount.sum());
+            stats.setCreatedAt(createdAt);
+            stats.setLastUsedAt(lastUsedAt);
+            stats.setPinned(pinned);
+            if (statementCache) {
+                long hits = statementCacheHits.sum();
+                long misses = statementCacheMisses.sum();
+                stats.setEstimatedStatementCacheHits(hits);
+                stats.setEstimatedStatementCacheMisses(misses);
+                stats.setEstimatedStatementCacheHitRate(hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+            }
+            
+            HikariPoolMXBean mxBean = dataSource.getHikariPoolMXBean();
+            if (mxBean != null) {
+                stats.setActiveConnections(mxBean.getActiveConnections());
+                stats.setIdleConnections(mxBean.getIdleConnections());
+                stats.setTotalConnections(mxBean.getTotalConnections());
+                stats.setThreadsAwaitingConnection(mxBean.getThreadsAwaitingConnection());
+            }
+            return stats;
+        }
+        
+        void close() {
+            try {
+                dataSource.close();
+            } catch (Exception e) {
+                log.warn("关闭连接池 {} 时发生错误: {}", fingerprint, e.getMessage());
+            }
+        }
+        
+        /**
+         * 去掉URL中的查询参数，避免统计信息中泄露参数里的凭据
+         */
+        private static String stripQuery(String url) {
+            if (url == null) {
+                return null;
+            }
+            int index = url.indexOf('?');
+            return index < 0 ? url : url.substring(0, index);
+        }
+    }
+    
+    /**
+     * 只读副本及其健康状态
+     */
+    private static class Replica {
+        private final String fingerprint;
+        private final String url;
+        private final DatabaseConfig config;
+        private final AtomicBoolean checking = new AtomicBoolean();
+        private final LongAdder routedCount = new LongAdder();
+        private final LongAdder failoverCount = new LongAdder();
+        private volatile boolean healthy = true;
+        private volatile long downSince;
+        private volatile String lastError;
+        private volatile long lastRequestedAt = System.currentTimeMillis();
+        
+        Replica(String fingerprint, DatabaseConfig config) {
+            this.fingerprint = fingerprint;
+            this.url = PooledDataSource.stripQuery(config.getUrl());
+            this.config = config;
+        }
+        
+        synchronized void markDown(Exception e) {
+            if (healthy) {
+                healthy = false;
+                downSince = System.currentTimeMillis();
+                failoverCount.increment();
+            }
+            lastError = e.getMessage();
+        }
+        
+        synchronized void markUp() {
+            healthy = true;
+            downSince = 0;
+        }
+        
+        ReplicaStats toStats(int outstandingRequests) {
+            ReplicaStats stats = new ReplicaStats();
+            stats.setFingerprint(fingerprint);
+            stats.setUrl(url);
+            stats.setHealthy(healthy);
+            stats.setOutstandingRequests(outstandingRequests);
+            stats.setRoutedCount(routedCount.sum());
+            stats.setFailoverCount(failoverCount.sum());
+            stats.setDownSince(downSince);
+            stats.setLastError(lastError);
+            return stats;
+        }
+    }
+}
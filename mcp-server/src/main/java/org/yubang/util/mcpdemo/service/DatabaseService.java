@@ -1,19 +1,53 @@
 package org.yubang.util.mcpdemo.service;
 
-import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
+import cn.hutool.crypto.SecureUtil;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.springframework.ai.tool.annotation.Tool;
+import org.yubang.util.mcpdemo.config.DatabaseProperties;
+import org.yubang.util.mcpdemo.model.AggregateConfig;
+import org.yubang.util.mcpdemo.model.ContinuationToken;
 import org.yubang.util.mcpdemo.model.DatabaseConfig;
+import org.yubang.util.mcpdemo.model.EncodedResult;
+import org.yubang.util.mcpdemo.model.QueryResult;
+import org.yubang.util.mcpdemo.model.ResultSetJsonEncoder;
+import org.yubang.util.mcpdemo.util.AggregateSql;
+import org.yubang.util.mcpdemo.util.BoundSql;
+import org.yubang.util.mcpdemo.util.LobReader;
+import org.yubang.util.mcpdemo.util.ResultBudget;
+import org.yubang.util.mcpdemo.util.SqlDialect;
+import org.yubang.util.mcpdemo.util.SqlIdentifiers;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * 数据库服务类
@@ -21,60 +55,1456 @@ import java.util.Map;
 @Service
 public class DatabaseService {
 
+    /**
+     * 并行流式扫描时每个分区最多缓冲的分块数，读取快于推送时分区线程在此阻塞
+     */
+    private static final int PARTITION_QUEUE_CAPACITY = 4;
+    
+    /**
+     * 分层采样的最大层数
+     */
+    private static final int SAMPLE_STRATA = 10;
+    
+    /**
+     * 按数据块采样时的过采样倍数，弥补数据页中行数不均和统计信息偏差
+     */
+    private static final int TABLESAMPLE_OVERSAMPLING = 4;
+    
+    private final DataSourceRegistry dataSourceRegistry;
+    
+    private final DataSourceCatalog dataSourceCatalog;
+    
+    private final SseEmitterService sseEmitterService;
+    
+    private final QueryResultCache queryResultCache;
+    
+    private final DatabaseProperties databaseProperties;
+    
+    private final QueryCancellationRegistry queryCancellationRegistry;
+    
+    private final JdbcExecutor jdbcExecutor;
+    
+    private final WatermarkStore watermarkStore;
+    
+    private final TempFileStore tempFileStore;
+    
+    private final QueryCostGuard queryCostGuard;
+    
+    // 直接编码结果集时使用的JSON工厂
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public DatabaseService(DataSourceRegistry dataSourceRegistry, DataSourceCatalog dataSourceCatalog,
+                           SseEmitterService sseEmitterService, QueryResultCache queryResultCache,
+                           DatabaseProperties databaseProperties, QueryCancellationRegistry queryCancellationRegistry,
+                           JdbcExecutor jdbcExecutor, WatermarkStore watermarkStore,
+                           TempFileStore tempFileStore, QueryCostGuard queryCostGuard) {
+        this.dataSourceRegistry = dataSourceRegistry;
+        this.dataSourceCatalog = dataSourceCatalog;
+        this.sseEmitterService = sseEmitterService;
+        this.queryResultCache = queryResultCache;
+        this.databaseProperties = databaseProperties;
+        this.queryCancellationRegistry = queryCancellationRegistry;
+        this.jdbcExecutor = jdbcExecutor;
+        this.watermarkStore = watermarkStore;
+        this.tempFileStore = tempFileStore;
+        this.queryCostGuard = queryCostGuard;
+    }
+
     /**
      * 根据配置信息查询数据库表数据
      *
      * @param config 数据库配置信息
-     * @return 查询结果列表
+     * @return 查询结果列表，流式模式下返回汇总信息
+     * @throws Exception 如果查询过程中发生错误
+     */
+    @Tool(name = "数据库对接", description = "通过配置的数据库连接信息，访问对应的数据表，返回数据表的所有数据；"
+            + "服务端已定义的数据源可通过datasource按名称引用，无需提供url和凭据；"
+            + "数据量较大时可设置stream=true，数据将以NDJSON分块通过SSE连接推送(query_chunk事件)，工具只返回汇总信息；"
+            + "也可设置pageSize分页查询，结果中的nextToken作为下一次调用的continuationToken继续获取下一页；"
+            + "SQL中的条件值请使用?占位符配合params，或:name占位符配合namedParams传入，不要直接拼接在SQL中；"
+            + "读取整张大表时可设置parallelism按主键范围切分为多个分区并行读取；"
+            + "反复轮询同一张表时可设置watermarkColumn(如自增ID或updated_at)，只返回上次轮询之后新增或更新的行；"
+            + "BLOB/CLOB/TEXT等大对象列默认只返回前64KB，可通过lobMode设置为hash(只返回摘要)或spill(写入临时文件并返回句柄)；"
+            + "只需了解表中数据的样子时可设置preview=true，返回sampleRows行样本和估算总行数estimatedTotalRows，不扫描全表；"
+            + "服务端开启代价检查时，估算扫描行数过大或大表全表扫描的查询会被拒绝或限制返回行数(结果中costGuard说明原因)；"
+            + "返回的行数和字节数受maxRows/maxBytes限制，超出时结果中truncated为true，可改用分页或流式模式获取全部数据")
+    public Object queryTable(DatabaseConfig config) throws Exception {
+        dataSourceCatalog.resolve(config);
+        if (config.isPreview() || isIncremental(config)) {
+            return query(config);
+        }
+        if (config.isStream()) {
+            return streamTable(config);
+        }
+        if (config.getPageSize() > 0 || config.getParallelism() > 1) {
+            return query(config);
+        }
+        
+        // 一次性查询直接从结果集编码为JSON，不构建中间结果；需要缓存时缓存编码好的JSON
+        long ttlSeconds = resolveCacheTtlSeconds(config);
+        if (ttlSeconds <= 0) {
+            return jdbcExecutor.execute(config, () -> encodeQuery(config));
+        }
+        String datasource = dataSourceRegistry.fingerprint(config);
+        return queryResultCache.getEncoded(datasource, cacheKey(datasource, config), ttlSeconds * 1000,
+            () -> jdbcExecutor.execute(config, () -> encodeQuery(config)));
+    }
+    
+    /**
+     * 在数据库中执行分组聚合，只返回统计结果
+     *
+     * @param config 聚合查询配置
+     * @return 聚合结果，每个分组一行
+     * @throws Exception 如果查询过程中发生错误
+     */
+    @Tool(name = "数据库聚合查询", description = "在数据库中对数据表进行分组统计，只返回统计结果；"
+            + "需要计数、求和、平均值、最大最小值时使用此工具，不要查询全表后自行计算。"
+            + "aggregates中的function支持COUNT、SUM、AVG、MIN、MAX；filters中的operator支持=、!=、>、>=、<、<=、"
+            + "LIKE、NOT LIKE、IN、NOT IN、BETWEEN、IS NULL、IS NOT NULL，多个条件之间为AND关系；"
+            + "orderBy只能使用分组列或聚合别名")
+    public QueryResult aggregateTable(AggregateConfig config) throws Exception {
+        DatabaseConfig source = config.getDatabaseConfig();
+        if (source == null) {
+            throw new IllegalArgumentException("缺少数据库配置databaseConfig");
+        }
+        dataSourceCatalog.resolve(source);
+        String tableName = config.getTableName() != null && !config.getTableName().trim().isEmpty()
+            ? config.getTableName() : source.getTableName();
+        BoundSql boundSql = AggregateSql.build(config, tableName, SqlDialect.fromUrl(source.getUrl()));
+        
+        // 生成的SQL作为普通查询执行，沿用缓存、隔离舱、超时和预算
+        DatabaseConfig queryConfig = new DatabaseConfig();
+        queryConfig.setDriverClassName(source.getDriverClassName());
+        queryConfig.setUrl(source.getUrl());
+        queryConfig.setUsername(source.getUsername());
+        queryConfig.setPassword(source.getPassword());
+        queryConfig.setReplicaUrls(source.getReplicaUrls());
+        queryConfig.setQueryTimeoutSeconds(source.getQueryTimeoutSeconds());
+        queryConfig.setCacheTtlSeconds(source.getCacheTtlSeconds());
+        queryConfig.setSql(boundSql.getSql());
+        queryConfig.setParams(boundSql.getParams());
+        return query(queryConfig);
+    }
+    
+    /**
+     * 查询并直接将结果集编码为JSON
+     * 每列的写值方式根据元数据选定一次，逐行从ResultSet写入JsonGenerator，
+     * 字节预算按实际写出的字符数计算
+     *
+     * @param config 数据库配置信息
+     * @return 已编码的查询结果，格式与QueryResult相同
      * @throws Exception 如果查询过程中发生错误
      */
-    @Tool(name = "数据库对接", description = "通过配置的数据库连接信息，访问对应的数据表，返回数据表的所有数据")
-    public List<Map<String, Object>> queryTable(DatabaseConfig config) throws Exception {
-        // 创建Hikari连接池配置
-        HikariConfig hikariConfig = new HikariConfig();
-        hikariConfig.setDriverClassName(config.getDriverClassName());
-        hikariConfig.setJdbcUrl(config.getUrl());
-        hikariConfig.setUsername(config.getUsername());
-        hikariConfig.setPassword(config.getPassword());
-        hikariConfig.setMaximumPoolSize(1);
-        hikariConfig.setMinimumIdle(1);
-        hikariConfig.setIdleTimeout(10000);
-        hikariConfig.setMaxLifetime(30000);
-        hikariConfig.setConnectionTimeout(5000);
-        
-        List<Map<String, Object>> resultList = new ArrayList<>();
-        
-        try (HikariDataSource dataSource = new HikariDataSource(hikariConfig);
-             Connection connection = dataSource.getConnection()) {
+    private EncodedResult encodeQuery(DatabaseConfig config) throws Exception {
+        BoundSql boundSql = bindSql(config);
+        ResultBudget budget = resolveBudget(config);
+        
+        try (Connection connection = dataSourceRegistry.getReadConnection(config)) {
+            QueryCostGuard.Decision decision = queryCostGuard.check(config, connection, boundSql);
+            
+            try (PreparedStatement stmt = prepareGuardedQuery(config, connection, boundSql, decision);
+                 QueryCancellationRegistry.Registration registration = queryCancellationRegistry.register(stmt);
+                 ResultSet rs = stmt.executeQuery()) {
+                ResultSetJsonEncoder encoder = ResultSetJsonEncoder.forMetaData(rs.getMetaData(), resolveLobReader(config));
+                StringWriter buffer = new StringWriter(8192);
+                int rowCount = 0;
+                boolean truncated = false;
+                
+                try (JsonGenerator generator = jsonFactory.createGenerator(buffer)) {
+                    generator.writeStartObject();
+                    encoder.writeHeader(generator);
+                    generator.writeArrayFieldStart("rows");
+                    while (rs.next()) {
+                        if (!budget.tryAcquireRow()) {
+                            truncated = true;
+                            break;
+                        }
+                        long before = writtenChars(generator, buffer);
+                        encoder.writeRowArray(generator, rs);
+                        budget.addBytes(writtenChars(generator, buffer) - before);
+                        rowCount++;
+                    }
+                    generator.writeEndArray();
+                    
+                    // 行数在读取完成后才能确定，写在rows之后
+                    generator.writeNumberField("rowCount", rowCount);
+                    if (truncated) {
+                        generator.writeBooleanField("truncated", true);
+                        generator.writeNumberField("rowsSeen", rowCount + 1);
+                    }
+                    if (decision.getNote() != null) {
+                        generator.writeStringField("costGuard", decision.getNote());
+                    }
+                    generator.writeEndObject();
+                }
+                return new EncodedResult(buffer.toString(), rowCount, truncated);
+            }
+        }
+    }
+    
+    /**
+     * 已写出的字符数，包含生成器内部尚未刷出的部分
+     */
+    private long writtenChars(JsonGenerator generator, StringWriter buffer) {
+        return buffer.getBuffer().length() + Math.max(0, generator.getOutputBuffered());
+    }
+    
+    /**
+     * 查询数据库表数据，一次性返回全部行
+     *
+     * @param config 数据库配置信息
+     * @return 列式查询结果
+     * @throws Exception 如果查询过程中发生错误
+     */
+    public QueryResult query(DatabaseConfig config) throws Exception {
+        dataSourceCatalog.resolve(config);
+        // 访问数据库的部分在数据源的隔离舱内执行，缓存命中时不占用执行许可
+        long ttlSeconds = resolveCacheTtlSeconds(config);
+        if (ttlSeconds <= 0) {
+            return jdbcExecutor.execute(config, scanPermits(config), () -> executeQuery(config));
+        }
+        
+        // 相同数据源上的相同查询在有效期内直接使用缓存结果
+        String datasource = dataSourceRegistry.fingerprint(config);
+        return queryResultCache.get(datasource, cacheKey(datasource, config), ttlSeconds * 1000,
+            () -> jdbcExecutor.execute(config, scanPermits(config), () -> executeQuery(config)));
+    }
+    
+    /**
+     * 查询同时占用的连接数
+     * 并行扫描的每个分区各占一个连接，在隔离舱中按最大分区数一次性预留执行许可
+     */
+    private int scanPermits(DatabaseConfig config) {
+        return Math.max(1, Math.min(config.getParallelism(), databaseProperties.getPool().getMaximumPoolSize()));
+    }
+    
+    /**
+     * 直接查询数据库，不经过缓存
+     */
+    private QueryResult executeQuery(DatabaseConfig config) throws Exception {
+        if (config.isPreview()) {
+            return previewTable(config);
+        }
+        if (isIncremental(config)) {
+            try (Connection connection = dataSourceRegistry.getReadConnection(config)) {
+                return queryIncremental(connection, config);
+            }
+        }
+        
+        // 并行扫描的每个分区各自从连接池获取连接，不能在持有连接时发起；所需的执行许可已在提交时预留
+        if (config.getParallelism() > 1) {
+            ScanPlan plan = planScan(config);
+            if (plan != null) {
+                return queryPartitioned(config, plan);
+            }
+        }
+        
+        // 从注册表中长期存在的连接池获取连接，重复查询同一数据库时复用已建立的连接
+        try (Connection connection = dataSourceRegistry.getReadConnection(config)) {
+            
+            // 开启分页时按键集分页查询
+            if (config.getPageSize() > 0) {
+                return queryPage(connection, config);
+            }
              
-            String sql = config.getSql();
-            // 如果SQL为空，则使用默认查询语句
-            if (sql == null || sql.trim().isEmpty()) {
-                sql = "SELECT * FROM " + config.getTableName();
+            BoundSql boundSql = bindSql(config);
+            QueryCostGuard.Decision decision = queryCostGuard.check(config, connection, boundSql);
+            
+            try (PreparedStatement stmt = prepareGuardedQuery(config, connection, boundSql, decision);
+                 QueryCancellationRegistry.Registration registration = queryCancellationRegistry.register(stmt);
+                 ResultSet rs = stmt.executeQuery()) {
+                // 列的存储方式根据元数据选定一次，所有行共用一份表头
+                QueryResult result = QueryResult.fromMetaData(rs.getMetaData(), resolveLobReader(config));
+                readRows(rs, result, resolveBudget(config));
+                result.setCostGuard(decision.getNote());
+                return result;
+            }
+        }
+    }
+    
+    /**
+     * 在预算内读取结果集的所有行，预算用尽时停止读取并将结果标记为截断
+     */
+    private void readRows(ResultSet rs, QueryResult result, ResultBudget budget) throws SQLException {
+        while (rs.next()) {
+            if (!budget.tryAcquireRow()) {
+                result.markTruncated();
+                return;
+            }
+            result.readRow(rs);
+            budget.addBytes(result.estimateRowJsonBytes(result.getRowCount() - 1));
+        }
+    }
+    
+    /**
+     * 确定本次查询的行数和字节数预算，调用参数优先，且不超过全局上限
+     */
+    private ResultBudget resolveBudget(DatabaseConfig config) {
+        DatabaseProperties.Query queryProperties = databaseProperties.getQuery();
+        return new ResultBudget(
+            resolveLimit(config.getMaxRows(), queryProperties.getDefaultMaxRows(), queryProperties.getMaxRows()),
+            resolveLimit(config.getMaxBytes(), queryProperties.getDefaultMaxBytes(), queryProperties.getMaxBytes()));
+    }
+    
+    /**
+     * 确定限制值：调用参数为空时使用默认值，上限大于0时不超过上限(0表示不限制)
+     */
+    private long resolveLimit(Number requested, long defaultValue, long maxValue) {
+        long value = requested != null ? requested.longValue() : defaultValue;
+        if (maxValue > 0 && (value <= 0 || value > maxValue)) {
+            return maxValue;
+        }
+        return value;
+    }
+    
+    /**
+     * 确定本次查询的大对象读取方式，调用参数优先，长度不超过全局上限
+     */
+    private LobReader resolveLobReader(DatabaseConfig config) {
+        DatabaseProperties.Lob lobProperties = databaseProperties.getLob();
+        LobReader.Mode mode = LobReader.parseMode(config.getLobMode() != null && !config.getLobMode().isEmpty()
+            ? config.getLobMode() : lobProperties.getDefaultMode());
+        int maxBytes = (int) resolveLimit(config.getLobMaxBytes(), lobProperties.getDefaultMaxBytes(),
+            lobProperties.getMaxBytes());
+        return new LobReader(mode, maxBytes, tempFileStore);
+    }
+    
+    /**
+     * 创建查询语句并设置查询超时
+     */
+    private PreparedStatement prepareQuery(DatabaseConfig config, Connection connection, String sql) throws SQLException {
+        PreparedStatement stmt = dataSourceRegistry.prepareStatement(config, connection, sql);
+        DatabaseProperties.Query queryProperties = databaseProperties.getQuery();
+        int timeoutSeconds = (int) resolveLimit(config.getQueryTimeoutSeconds(),
+            queryProperties.getDefaultTimeoutSeconds(), queryProperties.getMaxTimeoutSeconds());
+        if (timeoutSeconds > 0) {
+            stmt.setQueryTimeout(timeoutSeconds);
+        }
+        return stmt;
+    }
+    
+    /**
+     * 创建通过代价检查的查询语句并绑定参数
+     * 代价超出阈值时通过setMaxRows限制行数，驱动会将其传给数据库(MySQL的SQL_SELECT_LIMIT、
+     * PostgreSQL执行消息中的最大行数)，数据库读到足够的行后即停止
+     */
+    private PreparedStatement prepareGuardedQuery(DatabaseConfig config, Connection connection, BoundSql boundSql,
+                                                  QueryCostGuard.Decision decision) throws SQLException {
+        PreparedStatement stmt = prepareQuery(config, connection, boundSql.getSql());
+        try {
+            if (decision.getMaxRows() > 0) {
+                stmt.setMaxRows(decision.getMaxRows());
             }
+            boundSql.bind(stmt, 0);
+            return stmt;
+        } catch (SQLException e) {
+            stmt.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * 确定查询结果缓存时间，优先使用调用参数，其次是数据源配置，最后是全局默认值
+     */
+    private long resolveCacheTtlSeconds(DatabaseConfig config) {
+        DatabaseProperties.Cache cacheProperties = databaseProperties.getCache();
+        // 增量查询的结果取决于服务端记录的水位，不能缓存
+        if (!cacheProperties.isEnabled() || isIncremental(config)) {
+            return 0;
+        }
+        if (config.getCacheTtlSeconds() != null) {
+            return config.getCacheTtlSeconds();
+        }
+        Long datasourceTtl = cacheProperties.getDatasourceTtlSeconds().get(config.getUrl());
+        return datasourceTtl != null ? datasourceTtl : cacheProperties.getDefaultTtlSeconds();
+    }
+    
+    /**
+     * 生成缓存键，包含所有影响查询结果的参数
+     */
+    private String cacheKey(String datasource, DatabaseConfig config) {
+        BoundSql boundSql = bindSql(config);
+        return datasource + "\n" + QueryResultCache.normalizeSql(boundSql.getSql()) + "\n" + boundSql.getParams()
+            + "\n" + config.getPageSize() + "\n" + config.getKeyColumn() + "\n" + config.getContinuationToken()
+            + "\n" + config.getParallelism() + "\n" + config.isOrderedMerge()
+            + "\n" + config.getMaxRows() + "\n" + config.getMaxBytes()
+            + "\n" + config.isPreview() + "\n" + config.getSampleRows() + "\n" + config.getSampleMode()
+            + "\n" + config.getLobMode() + "\n" + config.getLobMaxBytes();
+    }
+    
+    /**
+     * 键集分页查询
+     * 使用 key > ? 条件代替OFFSET定位下一页，每页的查询代价与所处位置无关
+     *
+     * @param connection 数据库连接
+     * @param config 数据库配置信息
+     * @return 当前页数据，还有更多数据时携带nextToken
+     * @throws Exception 如果查询过程中发生错误
+     */
+    private QueryResult queryPage(Connection connection, DatabaseConfig config) throws Exception {
+        // 每页的行数不超过行数预算，超出字节预算时提前结束本页，剩余数据通过nextToken继续获取
+        ResultBudget budget = resolveBudget(config);
+        int pageSize = budget.getMaxRows() > 0
+            ? (int) Math.min(config.getPageSize(), budget.getMaxRows()) : config.getPageSize();
+        String keyColumn = resolveKeyColumn(connection, config);
+        BoundSql boundSql = bindSql(config);
+        checkWrappedQueryCost(connection, config, boundSql);
+        String queryHash = SecureUtil.sha256(dataSourceRegistry.fingerprint(config) + "\n"
+            + boundSql.getSql() + "\n" + boundSql.getParams() + "\n" + keyColumn).substring(0, 16);
+        
+        ContinuationToken token = null;
+        if (config.getContinuationToken() != null && !config.getContinuationToken().isEmpty()) {
+            token = ContinuationToken.decode(config.getContinuationToken());
+            if (!queryHash.equals(token.getQueryHash())) {
+                throw new IllegalArgumentException("continuationToken与当前查询不匹配");
+            }
+        }
+        
+        StringBuilder sql = new StringBuilder("SELECT * FROM ");
+        if (isTableQuery(config)) {
+            sql.append(SqlIdentifiers.requireValid(config.getTableName()));
+        } else {
+            sql.append("(").append(boundSql.getSql()).append(") paged");
+        }
+        if (token != null) {
+            sql.append(" WHERE ").append(keyColumn).append(" > ?");
+        }
+        sql.append(" ORDER BY ").append(keyColumn);
+        // 多取一行用于判断是否还有下一页
+        sql.append(SqlDialect.fromUrl(config.getUrl()).limitClause(pageSize + 1));
+        
+        try (PreparedStatement stmt = prepareQuery(config, connection, sql.toString());
+             QueryCancellationRegistry.Registration registration = queryCancellationRegistry.register(stmt)) {
+            boundSql.bind(stmt, 0);
+            if (token != null) {
+                bindPageKey(stmt, boundSql.getParams().size() + 1, token);
+            }
+            stmt.setMaxRows(pageSize + 1);
             
-            try (Statement stmt = connection.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
-                 
-                ResultSetMetaData metaData = rs.getMetaData();
-                int columnCount = metaData.getColumnCount();
+            try (ResultSet rs = stmt.executeQuery()) {
+                QueryResult result = QueryResult.fromMetaData(rs.getMetaData(), resolveLobReader(config));
+                int keyIndex = result.indexOf(keyColumn);
+                if (keyIndex < 0) {
+                    throw new IllegalArgumentException("查询结果中不包含分页键列: " + keyColumn);
+                }
                 
-                // 遍历结果集
+                boolean more = false;
                 while (rs.next()) {
-                    Map<String, Object> row = new HashMap<>();
+                    if (result.getRowCount() >= pageSize || !budget.tryAcquireRow()) {
+                        more = true;
+                        break;
+                    }
+                    result.readRow(rs);
+                    budget.addBytes(result.estimateRowJsonBytes(result.getRowCount() - 1));
+                }
+                
+                if (more) {
+                    Object lastKey = result.getValue(result.getRowCount() - 1, keyIndex);
+                    int keySqlType = rs.getMetaData().getColumnType(keyIndex + 1);
+                    result.setNextToken(ContinuationToken.of(keyColumn, lastKey, keySqlType, queryHash).encode());
+                }
+                return result;
+            }
+        }
+    }
+    
+    /**
+     * 增量查询
+     * 只读取水位列大于上一次水位的行并按水位列排序，读取完成后将水位推进到最后一行的值，
+     * 查询代价与两次轮询之间的变化量成正比。结果因预算被截断时，末尾与最后一行水位值相同的行不返回，
+     * 保证下一次查询不会漏掉水位值相同的行；返回的行水位值全部相同时无法安全推进水位，报错且不推进
+     *
+     * @param connection 数据库连接
+     * @param config 数据库配置信息
+     * @return 水位之后的数据，携带新的水位值
+     * @throws Exception 如果查询过程中发生错误
+     */
+    private QueryResult queryIncremental(Connection connection, DatabaseConfig config) throws Exception {
+        if (config.isStream() || config.getPageSize() > 0 || config.getParallelism() > 1) {
+            throw new IllegalArgumentException("增量查询不能与流式、分页或并行扫描同时使用");
+        }
+        String watermarkColumn = SqlIdentifiers.requireValid(config.getWatermarkColumn());
+        // 结果集中的列名不带表别名；自定义SQL包装为派生表后，外层查询看不到内层的表别名(如o.updated_at)，
+        // 只能按结果列名引用水位列
+        String watermarkName = watermarkColumn.substring(watermarkColumn.lastIndexOf('.') + 1);
+        String predicateColumn = isTableQuery(config) ? watermarkColumn : watermarkName;
+        BoundSql boundSql = bindSql(config);
+        checkWrappedQueryCost(connection, config, boundSql);
+        
+        // 水位按客户端和查询分别记录
+        ToolCallContext context = ToolCallContext.current();
+        String clientId = context != null ? context.getClientId() : "default";
+        String queryKey = config.getWatermarkKey() != null && !config.getWatermarkKey().isEmpty()
+            ? config.getWatermarkKey()
+            : SecureUtil.sha256(dataSourceRegistry.fingerprint(config) + "\n" + boundSql.getSql() + "\n"
+                + boundSql.getParams() + "\n" + watermarkColumn).substring(0, 16);
+        if (config.isResetWatermark()) {
+            watermarkStore.remove(clientId, queryKey);
+        }
+        Object watermark = config.getWatermark() != null ? config.getWatermark() : watermarkStore.get(clientId, queryKey);
+        
+        ResultBudget budget = resolveBudget(config);
+        StringBuilder sql = new StringBuilder("SELECT * FROM ");
+        if (isTableQuery(config)) {
+            sql.append(SqlIdentifiers.requireValid(config.getTableName()));
+        } else {
+            sql.append("(").append(boundSql.getSql()).append(") incremental");
+        }
+        sql.append(" WHERE ").append(predicateColumn).append(watermark != null ? " > ?" : " IS NOT NULL");
+        sql.append(" ORDER BY ").append(predicateColumn);
+        if (budget.getMaxRows() > 0) {
+            // 多取一行用于判断是否被截断
+            int limit = (int) Math.min(budget.getMaxRows() + 1, Integer.MAX_VALUE);
+            sql.append(SqlDialect.fromUrl(config.getUrl()).limitClause(limit));
+        }
+        
+        QueryResult result;
+        int watermarkIndex;
+        try (PreparedStatement stmt = prepareQuery(config, connection, sql.toString());
+             QueryCancellationRegistry.Registration registration = queryCancellationRegistry.register(stmt)) {
+            boundSql.bind(stmt, 0);
+            if (watermark != null) {
+                bindWatermark(stmt, boundSql.getParams().size() + 1, watermark, watermarkName, config);
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                result = QueryResult.fromMetaData(rs.getMetaData(), resolveLobReader(config));
+                watermarkIndex = result.indexOf(watermarkName);
+                if (watermarkIndex < 0) {
+                    throw new IllegalArgumentException("查询结果中不包含水位列: " + watermarkColumn);
+                }
+                readRows(rs, result, budget);
+            }
+        }
+        
+        if (result.getRowCount() > 0) {
+            result.truncateRows(completeWatermarkRows(result, watermarkIndex));
+            // 保留驱动返回的类型(如Timestamp)，下一次查询按相同的SQL类型绑定
+            watermark = result.getValue(result.getRowCount() - 1, watermarkIndex);
+            watermarkStore.put(clientId, queryKey, watermark);
+        }
+        result.setWatermark(watermark);
+        return result;
+    }
+    
+    /**
+     * 绑定水位值
+     * 服务端记录的水位保留驱动返回的类型直接绑定；调用方通过watermark参数传入的水位是字符串，
+     * 按语句元数据中水位列的类型绑定，PostgreSQL不会将varchar参数与timestamp列比较
+     */
+    private void bindWatermark(PreparedStatement stmt, int index, Object watermark, String columnName,
+                               DatabaseConfig config) throws SQLException {
+        // MySQL比较时会将字符串隐式转换为日期时间，且其客户端预编译语句读取元数据需要执行一次查询
+        if (watermark instanceof String && SqlDialect.fromUrl(config.getUrl()) != SqlDialect.MYSQL) {
+            Integer sqlType = temporalColumnType(stmt, columnName);
+            if (sqlType != null) {
+                stmt.setObject(index, watermark, sqlType);
+                return;
+            }
+        }
+        stmt.setObject(index, watermark);
+    }
+    
+    /**
+     * 从语句元数据读取日期时间列的SQL类型，列不是日期时间类型或驱动不提供元数据时返回null
+     */
+    private Integer temporalColumnType(PreparedStatement stmt, String columnName) {
+        try {
+            ResultSetMetaData metaData = stmt.getMetaData();
+            if (metaData == null) {
+                return null;
+            }
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                if (!metaData.getColumnLabel(i).equalsIgnoreCase(columnName)) {
+                    continue;
+                }
+                switch (metaData.getColumnType(i)) {
+                    case Types.DATE:
+                    case Types.TIME:
+                    case Types.TIME_WITH_TIMEZONE:
+                    case Types.TIMESTAMP:
+                    case Types.TIMESTAMP_WITH_TIMEZONE:
+                        return metaData.getColumnType(i);
+                    default:
+                        return null;
+                }
+            }
+        } catch (SQLException e) {
+            // 驱动不支持在执行前读取元数据，按原值绑定
+        }
+        return null;
+    }
+    
+    /**
+     * 确定增量查询可以返回的行数
+     * 结果未被截断时全部返回；被截断时末尾与最后一行水位值相同的一组行留到下一次查询，
+     * 因为下一次查询只读取水位值大于本次水位的行
+     *
+     * @param result 按水位列排序的查询结果，至少包含一行
+     * @param watermarkIndex 水位列的下标
+     * @return 可以返回并据此推进水位的行数
+     * @throws IllegalStateException 结果被截断且全部行的水位值相同，推进水位会漏掉同值的其余行
+     */
+    static int completeWatermarkRows(QueryResult result, int watermarkIndex) {
+        int rowCount = result.getRowCount();
+        if (!result.isTruncated()) {
+            return rowCount;
+        }
+        Object lastValue = result.getValue(rowCount - 1, watermarkIndex);
+        int tieStart = rowCount - 1;
+        while (tieStart > 0 && Objects.equals(result.getValue(tieStart - 1, watermarkIndex), lastValue)) {
+            tieStart--;
+        }
+        if (tieStart == 0) {
+            throw new IllegalStateException("增量查询读到的 " + rowCount + " 行水位值全部为 " + lastValue
+                + "，且还有同值的行超出了结果预算，推进水位会漏掉这些行，水位未推进；"
+                + "请调大maxRows/maxBytes使同一水位值的行能在一次查询中全部返回");
+        }
+        return tieStart;
+    }
+    
+    /**
+     * 检查作为子查询的自定义SQL的代价
+     * 分页和增量查询在外层按键或水位排序并限制行数，但数据库可能仍需计算出子查询的全部结果；
+     * 按tableName读取时通过键或水位的范围条件定位，不做检查。返回行数本身已受限，只有拒绝生效
+     */
+    private void checkWrappedQueryCost(Connection connection, DatabaseConfig config, BoundSql boundSql) {
+        if (!isTableQuery(config)) {
+            queryCostGuard.check(config, connection, boundSql);
+        }
+    }
+    
+    /**
+     * 是否为增量查询
+     */
+    private boolean isIncremental(DatabaseConfig config) {
+        return config.getWatermarkColumn() != null && !config.getWatermarkColumn().trim().isEmpty();
+    }
+    
+    /**
+     * 确定分页键列，未指定时使用表的单列主键
+     */
+    private String resolveKeyColumn(Connection connection, DatabaseConfig config) throws SQLException {
+        if (config.getKeyColumn() != null && !config.getKeyColumn().isEmpty()) {
+            return SqlIdentifiers.requireValid(config.getKeyColumn());
+        }
+        if (!isTableQuery(config)) {
+            throw new IllegalArgumentException("使用自定义SQL分页或并行扫描时需要指定keyColumn");
+        }
+        
+        String table = SqlIdentifiers.requireValid(config.getTableName());
+        String schema = null;
+        int dot = table.lastIndexOf('.');
+        if (dot > 0) {
+            schema = table.substring(0, dot);
+            table = table.substring(dot + 1);
+        }
+        
+        DatabaseMetaData metaData = connection.getMetaData();
+        // MySQL中的库对应JDBC的catalog
+        boolean mysql = SqlDialect.fromUrl(config.getUrl()) == SqlDialect.MYSQL;
+        String catalog = mysql && schema != null ? schema : connection.getCatalog();
+        String schemaPattern = mysql ? null : schema;
+        if (metaData.storesUpperCaseIdentifiers()) {
+            table = table.toUpperCase();
+            schemaPattern = schemaPattern == null ? null : schemaPattern.toUpperCase();
+        }
+        
+        List<String> keyColumns = new ArrayList<>();
+        try (ResultSet rs = metaData.getPrimaryKeys(catalog, schemaPattern, table)) {
+            while (rs.next()) {
+                keyColumns.add(rs.getString("COLUMN_NAME"));
+            }
+        }
+        if (keyColumns.size() != 1) {
+            throw new IllegalArgumentException("表 " + config.getTableName() + " 没有单列主键，请通过keyColumn指定分页或分区键");
+        }
+        return keyColumns.get(0);
+    }
+    
+    /**
+     * 制定并行扫描计划
+     * 查询分区键的最小值和最大值，将[min, max]均匀切分为若干个左闭右开区间
+     *
+     * @param config 数据库配置信息
+     * @return 扫描计划，没有可切分的数据时返回null，由调用方按普通方式查询
+     * @throws Exception 如果查询过程中发生错误
+     */
+    private ScanPlan planScan(DatabaseConfig config) throws Exception {
+        if (config.getPageSize() > 0) {
+            throw new IllegalArgumentException("并行扫描不能与分页同时使用");
+        }
+        
+        BoundSql boundSql = bindSql(config);
+        String source = isTableQuery(config)
+            ? SqlIdentifiers.requireValid(config.getTableName())
+            : "(" + boundSql.getSql() + ") scan";
+        String keyColumn;
+        BigInteger min;
+        BigInteger max;
+        
+        try (Connection connection = dataSourceRegistry.getReadConnection(config)) {
+            // 并行扫描的总工作量与一次性查询相同，先做代价检查；需要限制行数时退回单条查询，由其应用行数上限
+            if (queryCostGuard.check(config, connection, boundSql).getMaxRows() > 0) {
+                return null;
+            }
+            keyColumn = resolveKeyColumn(connection, config);
+            String rangeSql = "SELECT MIN(" + keyColumn + "), MAX(" + keyColumn + ") FROM " + source;
+            try (PreparedStatement stmt = prepareQuery(config, connection, rangeSql);
+                 QueryCancellationRegistry.Registration registration = queryCancellationRegistry.register(stmt)) {
+                boundSql.bind(stmt, 0);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    rs.next();
+                    min = toPartitionBound(rs.getObject(1), keyColumn);
+                    max = toPartitionBound(rs.getObject(2), keyColumn);
+                }
+            }
+        }
+        if (min == null || max == null) {
+            return null;
+        }
+        
+        // 分区数不超过单个连接池的连接数，也不超过键的取值个数
+        BigInteger span = max.subtract(min).add(BigInteger.ONE);
+        int partitions = Math.min(config.getParallelism(), databaseProperties.getPool().getMaximumPoolSize());
+        if (span.compareTo(BigInteger.valueOf(partitions)) < 0) {
+            partitions = span.intValue();
+        }
+        if (partitions < 2) {
+            return null;
+        }
+        
+        List<BigInteger> bounds = new ArrayList<>(partitions + 1);
+        for (int i = 0; i <= partitions; i++) {
+            bounds.add(min.add(span.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(partitions))));
+        }
+        
+        String sql = "SELECT * FROM " + source + " WHERE " + keyColumn + " >= ? AND " + keyColumn + " < ?";
+        if (config.isOrderedMerge()) {
+            sql += " ORDER BY " + keyColumn;
+        }
+        return new ScanPlan(sql, boundSql, bounds);
+    }
+    
+    /**
+     * 将分区键的最小值/最大值向下取整，非数值类型的键无法切分
+     */
+    private BigInteger toPartitionBound(Object value, String keyColumn) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof BigInteger) {
+            return (BigInteger) value;
+        }
+        if (value instanceof Number) {
+            BigDecimal decimal = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+            return decimal.setScale(0, RoundingMode.FLOOR).toBigInteger();
+        }
+        throw new IllegalArgumentException("并行扫描的分区键必须为数值类型: " + keyColumn);
+    }
+    
+    /**
+     * 为指定分区创建并绑定查询语句
+     */
+    private PreparedStatement preparePartition(DatabaseConfig config, Connection connection,
+                                               ScanPlan plan, int partition) throws SQLException {
+        PreparedStatement stmt = prepareQuery(config, connection, plan.sql);
+        try {
+            plan.boundSql.bind(stmt, 0);
+            int offset = plan.boundSql.getParams().size();
+            stmt.setObject(offset + 1, toKeyParam(plan.bounds.get(partition)));
+            stmt.setObject(offset + 2, toKeyParam(plan.bounds.get(partition + 1)));
+            return stmt;
+        } catch (SQLException e) {
+            stmt.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * 分区边界在long范围内时按long绑定，否则按BigDecimal绑定
+     */
+    private Object toKeyParam(BigInteger value) {
+        return value.bitLength() < 64 ? (Object) value.longValue() : new BigDecimal(value);
+    }
+    
+    /**
+     * 并行读取各分区并合并为一个查询结果
+     *
+     * @param config 数据库配置信息
+     * @param plan 扫描计划
+     * @return 合并后的查询结果
+     * @throws Exception 任一分区查询失败
+     */
+    private QueryResult queryPartitioned(DatabaseConfig config, ScanPlan plan) throws Exception {
+        int partitions = plan.size();
+        // 所有分区共享一份预算，截断时返回的行不保证是按分区键连续的前缀
+        ResultBudget budget = resolveBudget(config);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            ExecutorCompletionService<QueryResult> completion = new ExecutorCompletionService<>(executor);
+            List<Future<QueryResult>> futures = new ArrayList<>(partitions);
+            for (int i = 0; i < partitions; i++) {
+                int partition = i;
+                futures.add(completion.submit(ToolCallContext.propagate(() -> readPartition(config, plan, partition, budget))));
+            }
+            
+            QueryResult merged = null;
+            for (int i = 0; i < partitions; i++) {
+                // 有序合并按分区顺序等待，无序合并按完成顺序合并
+                Future<QueryResult> future = config.isOrderedMerge() ? futures.get(i) : completion.take();
+                QueryResult result = awaitPartition(future);
+                if (merged == null) {
+                    merged = result;
+                } else {
+                    merged.append(result);
+                }
+            }
+            return merged;
+        } finally {
+            // 任一分区失败时中断其余仍在执行的分区
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * 读取单个分区的全部数据
+     */
+    private QueryResult readPartition(DatabaseConfig config, ScanPlan plan, int partition,
+                                      ResultBudget budget) throws Exception {
+        try (Connection connection = dataSourceRegistry.getReadConnection(config);
+             PreparedStatement stmt = preparePartition(config, connection, plan, partition);
+             QueryCancellationRegistry.Registration registration = queryCancellationRegistry.register(stmt);
+             ResultSet rs = stmt.executeQuery()) {
+            QueryResult result = QueryResult.fromMetaData(rs.getMetaData(), resolveLobReader(config));
+            readRows(rs, result, budget);
+            return result;
+        }
+    }
+    
+    /**
+     * 等待分区执行结果，分区中抛出的异常原样抛出
+     */
+    private <T> T awaitPartition(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * 绑定上一页最后一行的键值
+     * 日期和时间戳键还原为JDBC类型绑定；无法还原的(如UUID)按令牌中记录的SQL类型绑定字符串，
+     * PostgreSQL不会将varchar参数与timestamp、uuid列比较
+     */
+    private void bindPageKey(PreparedStatement stmt, int index, ContinuationToken token) throws SQLException {
+        Object key = token.bindValue();
+        if (key instanceof String && token.getKeySqlType() != null) {
+            stmt.setObject(index, key, token.getKeySqlType());
+        } else {
+            stmt.setObject(index, key);
+        }
+    }
+    
+    /**
+     * 预览表数据，返回少量样本行和根据统计信息估算的总行数
+     * 表有数值类型的单列主键(或指定的keyColumn)时，在键的取值范围内随机定位并通过索引读取样本；
+     * 否则PostgreSQL使用TABLESAMPLE按数据块采样，其他数据库退化为读取表的前sampleRows行
+     *
+     * @param config 数据库配置信息
+     * @return 样本数据，sampleMethod为实际使用的采样方式
+     * @throws Exception 如果查询过程中发生错误
+     */
+    private QueryResult previewTable(DatabaseConfig config) throws Exception {
+        if (!isTableQuery(config)) {
+            throw new IllegalArgumentException("预览模式只支持通过tableName查询，不能与自定义SQL同时使用");
+        }
+        boolean stratified = "stratified".equalsIgnoreCase(config.getSampleMode());
+        if (!stratified && !"random".equalsIgnoreCase(config.getSampleMode())) {
+            throw new IllegalArgumentException("不支持的采样方式: " + config.getSampleMode());
+        }
+        String table = SqlIdentifiers.requireValid(config.getTableName());
+        SqlDialect dialect = SqlDialect.fromUrl(config.getUrl());
+        
+        // 样本行数不超过行数预算，达到样本行数不算截断
+        ResultBudget budget = resolveBudget(config);
+        int sampleRows = Math.max(1, config.getSampleRows());
+        if (budget.getMaxRows() > 0) {
+            sampleRows = (int) Math.min(sampleRows, budget.getMaxRows());
+        }
+        ResultBudget sampleBudget = new ResultBudget(sampleRows, budget.getMaxBytes());
+        
+        try (Connection connection = dataSourceRegistry.getReadConnection(config)) {
+            Long estimatedRows = estimateTableRows(config, connection, dialect, table);
+            
+            QueryResult result = null;
+            String keyColumn = resolveSampleKey(connection, config);
+            if (keyColumn != null) {
+                result = sampleByKey(config, connection, dialect, table, keyColumn, sampleRows, stratified, sampleBudget);
+            }
+            if (result == null) {
+                String sampleClause = estimatedRows != null && estimatedRows > 0
+                    ? dialect.tableSampleClause(Math.min(100.0,
+                        100.0 * sampleRows * TABLESAMPLE_OVERSAMPLING / estimatedRows))
+                    : null;
+                String sql = "SELECT * FROM " + table + (sampleClause != null ? sampleClause : "")
+                    + dialect.limitClause(sampleRows);
+                try (PreparedStatement stmt = prepareQuery(config, connection, sql);
+                     QueryCancellationRegistry.Registration registration = queryCancellationRegistry.register(stmt)) {
+                    stmt.setMaxRows(sampleRows);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        result = QueryResult.fromMetaData(rs.getMetaData(), resolveLobReader(config));
+                        readRows(rs, result, sampleBudget);
+                    }
+                }
+                result.setSampleMethod(sampleClause != null ? "tablesample" : "head");
+            }
+            result.setEstimatedTotalRows(estimatedRows);
+            return result;
+        }
+    }
+    
+    /**
+     * 在键的取值范围内采样
+     * 将[min, max]均分为若干层，每层从随机位置起按键顺序读取连续的行：随机采样每行单独一层，
+     * 分层采样最多SAMPLE_STRATA层；每层都是一次索引定位，不扫描全表
+     *
+     * @return 样本数据，键不是数值类型或表为空时返回null
+     */
+    private QueryResult sampleByKey(DatabaseConfig config, Connection connection, SqlDialect dialect, String table,
+                                    String keyColumn, int sampleRows, boolean stratified,
+                                    ResultBudget budget) throws SQLException {
+        BigInteger min;
+        BigInteger max;
+        String rangeSql = "SELECT MIN(" + keyColumn + "), MAX(" + keyColumn + ") FROM " + table;
+        try (PreparedStatement stmt = prepareQuery(config, connection, rangeSql);
+             QueryCancellationRegistry.Registration registration = queryCancellationRegistry.register(stmt);
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            Object low = rs.getObject(1);
+            Object high = rs.getObject(2);
+            if (!(low instanceof Number) || !(high instanceof Number)) {
+                return null;
+            }
+            min = toPartitionBound(low, keyColumn);
+            max = toPartitionBound(high, keyColumn);
+        }
+        
+        BigInteger span = max.subtract(min).add(BigInteger.ONE);
+        int strata = stratified ? Math.min(sampleRows, SAMPLE_STRATA) : sampleRows;
+        if (span.compareTo(BigInteger.valueOf(strata)) < 0) {
+            strata = span.intValue();
+        }
+        int rowsPerStratum = (sampleRows + strata - 1) / strata;
+        String sql = "SELECT * FROM " + table + " WHERE " + keyColumn + " >= ? AND " + keyColumn + " < ?"
+            + " ORDER BY " + keyColumn + dialect.limitClause(rowsPerStratum);
+        
+        QueryResult result = null;
+        try (PreparedStatement stmt = prepareQuery(config, connection, sql);
+             QueryCancellationRegistry.Registration registration = queryCancellationRegistry.register(stmt)) {
+            for (int i = 0; i < strata; i++) {
+                int remaining = result == null ? sampleRows : sampleRows - result.getRowCount();
+                if (remaining <= 0 || (result != null && result.isTruncated())) {
+                    break;
+                }
+                BigInteger low = min.add(span.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(strata)));
+                BigInteger high = min.add(span.multiply(BigInteger.valueOf(i + 1)).divide(BigInteger.valueOf(strata)));
+                stmt.setObject(1, toKeyParam(low.add(randomBelow(high.subtract(low)))));
+                stmt.setObject(2, toKeyParam(high));
+                stmt.setMaxRows(Math.min(rowsPerStratum, remaining));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (result == null) {
+                        result = QueryResult.fromMetaData(rs.getMetaData(), resolveLobReader(config));
+                    }
+                    readRows(rs, result, budget);
+                }
+            }
+        }
+        if (result != null) {
+            result.setSampleMethod(stratified ? "stratified" : "random");
+        }
+        return result;
+    }
+    
+    /**
+     * 确定采样使用的键列，表没有单列主键且未指定keyColumn时返回null
+     */
+    private String resolveSampleKey(Connection connection, DatabaseConfig config) throws SQLException {
+        try {
+            return resolveKeyColumn(connection, config);
+        } catch (IllegalArgumentException e) {
+            if (config.getKeyColumn() != null && !config.getKeyColumn().isEmpty()) {
+                throw e;
+            }
+            return null;
+        }
+    }
+    
+    /**
+     * 生成[0, bound)范围内的随机数
+     */
+    private BigInteger randomBelow(BigInteger bound) {
+        if (bound.signum() <= 0) {
+            return BigInteger.ZERO;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (bound.bitLength() < 63) {
+            return BigInteger.valueOf(random.nextLong(bound.longValue()));
+        }
+        return new BigInteger(bound.bitLength() + 8, random).mod(bound);
+    }
+    
+    /**
+     * 从数据库的统计信息读取表的估算行数，不扫描数据
+     *
+     * @return 估算行数，数据库不支持或没有统计信息时返回null
+     */
+    private Long estimateTableRows(DatabaseConfig config, Connection connection, SqlDialect dialect, String table) {
+        String sql = dialect.rowEstimateSql();
+        if (sql == null) {
+            return null;
+        }
+        String schema = null;
+        String name = table;
+        int dot = table.lastIndexOf('.');
+        if (dot > 0) {
+            schema = table.substring(0, dot);
+            name = table.substring(dot + 1);
+        }
+        
+        try {
+            if (schema == null) {
+                // MySQL中的库对应JDBC的catalog
+                schema = dialect == SqlDialect.MYSQL ? connection.getCatalog() : connection.getSchema();
+            } else if (connection.getMetaData().storesUpperCaseIdentifiers()) {
+                schema = schema.toUpperCase();
+            }
+            if (schema == null) {
+                return null;
+            }
+            try (PreparedStatement stmt = dataSourceRegistry.prepareStatement(config, connection, sql)) {
+                stmt.setString(1, schema);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        if (name.equalsIgnoreCase(rs.getString(1))) {
+                            long rows = rs.getLong(2);
+                            return rs.wasNull() ? null : rows;
+                        }
+                    }
+                }
+            }
+        } catch (SQLException | AbstractMethodError e) {
+            // 统计信息不可用时只是不返回估算行数，不影响预览
+        }
+        return null;
+    }
+    
+    /**
+     * 是否为整表查询(未提供自定义SQL)
+     */
+    private boolean isTableQuery(DatabaseConfig config) {
+        return config.getSql() == null || config.getSql().trim().isEmpty();
+    }
+    
+    /**
+     * 以只进游标执行查询，将打开的结果集直接交给处理器逐行消费，不构建中间结果
+     * 驱动按fetchSize分批拉取(MySQL逐行流式读取)，数据库读取与处理器的处理交替进行
+     *
+     * @param config 数据库配置信息
+     * @param maxRows 最多读取的行数，0表示不限制，由数据库在读到足够的行后停止
+     * @param handler 结果集处理器，在持有连接期间调用
+     * @return 处理器的返回值
+     * @throws Exception 如果查询或处理过程中发生错误
+     */
+    public <T> T scan(DatabaseConfig config, int maxRows, ResultSetHandler<T> handler) throws Exception {
+        return scan(config, maxRows, stmt -> { }, handler);
+    }
+    
+    /**
+     * 以只进游标执行查询，语句执行前交给onStatement，调用方可以在其他线程上取消该语句
+     *
+     * @param config 数据库配置信息
+     * @param maxRows 最多读取的行数，0表示不限制
+     * @param onStatement 语句执行前的回调
+     * @param handler 结果集处理器，在持有连接期间调用
+     * @return 处理器的返回值
+     * @throws Exception 如果查询或处理过程中发生错误
+     */
+    public <T> T scan(DatabaseConfig config, int maxRows, Consumer<Statement> onStatement,
+                      ResultSetHandler<T> handler) throws Exception {
+        dataSourceCatalog.resolve(config);
+        BoundSql boundSql = bindSql(config);
+        return jdbcExecutor.execute(config, () -> {
+            try (Connection connection = dataSourceRegistry.getReadConnection(config)) {
+                // PostgreSQL等驱动只有在关闭自动提交时才会按fetchSize分批拉取，连接归还时由连接池恢复
+                connection.setAutoCommit(false);
+                
+                try (PreparedStatement stmt = prepareQuery(config, connection, boundSql.getSql());
+                     QueryCancellationRegistry.Registration registration = queryCancellationRegistry.register(stmt)) {
+                    boundSql.bind(stmt, 0);
+                    stmt.setFetchSize(streamingFetchSize(config));
+                    if (maxRows > 0) {
+                        stmt.setMaxRows(maxRows);
+                    }
+                    onStatement.accept(stmt);
                     
-                    // 遍历每列数据
-                    for (int i = 1; i <= columnCount; i++) {
-                        String columnName = metaData.getColumnName(i);
-                        Object value = rs.getObject(i);
-                        row.put(columnName, value);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        return handler.handle(rs);
                     }
+                }
+            }
+        });
+    }
+    
+    /**
+     * 通过EXPLAIN估算查询返回的行数，不执行查询本身
+     *
+     * @param config 数据库配置信息
+     * @return 估算行数，数据库不支持或执行计划中没有估算值时返回null
+     * @throws Exception 如果获取连接失败
+     */
+    public Long estimateResultRows(DatabaseConfig config) throws Exception {
+        dataSourceCatalog.resolve(config);
+        BoundSql boundSql = bindSql(config);
+        return jdbcExecutor.execute(config, () -> {
+            try (Connection connection = dataSourceRegistry.getReadConnection(config)) {
+                return queryCostGuard.estimateResultRows(config, connection, boundSql);
+            }
+        });
+    }
+    
+    /**
+     * 以流式模式查询数据库表数据
+     * 使用只进游标按fetchSize分批读取，每凑满chunkRows行就编码为NDJSON通过SSE推送给当前客户端，
+     * 内存占用与表的大小无关
+     *
+     * @param config 数据库配置信息
+     * @return 汇总信息，包含总行数、分块数和列名
+     * @throws Exception 如果查询或推送过程中发生错误
+     */
+    public Map<String, Object> streamTable(DatabaseConfig config) throws Exception {
+        dataSourceCatalog.resolve(config);
+        ToolCallContext context = ToolCallContext.current();
+        if (context == null || !sseEmitterService.hasEmitter(context.getClientId())) {
+            throw new IllegalStateException("流式查询需要通过SSE连接调用");
+        }
+        return jdbcExecutor.execute(config, scanPermits(config), () -> executeStream(config, context));
+    }
+    
+    /**
+     * 执行流式查询并推送分块
+     */
+    private Map<String, Object> executeStream(DatabaseConfig config, ToolCallContext context) throws Exception {
+        if (config.getParallelism() > 1) {
+            ScanPlan plan = planScan(config);
+            if (plan != null) {
+                return streamPartitioned(config, plan, context);
+            }
+        }
+        
+        BoundSql boundSql = bindSql(config);
+        int chunkRows = Math.max(1, config.getChunkRows());
+        long rowCount = 0;
+        int chunkCount = 0;
+        String[] columnNames;
+        
+        QueryCostGuard.Decision decision;
+        
+        try (Connection connection = dataSourceRegistry.getReadConnection(config)) {
+            // 流式读取的总工作量与一次性查询相同，同样先做代价检查
+            decision = queryCostGuard.check(config, connection, boundSql);
+            // PostgreSQL等驱动只有在关闭自动提交时才会按fetchSize分批拉取，连接归还时由连接池恢复
+            connection.setAutoCommit(false);
+            
+            try (PreparedStatement stmt = prepareGuardedQuery(config, connection, boundSql, decision);
+                 QueryCancellationRegistry.Registration registration = queryCancellationRegistry.register(stmt)) {
+                stmt.setFetchSize(streamingFetchSize(config));
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    ResultSetJsonEncoder encoder = ResultSetJsonEncoder.forMetaData(rs.getMetaData(), resolveLobReader(config));
+                    columnNames = encoder.getColumnNames();
                     
-                    resultList.add(row);
+                    StringWriter buffer = new StringWriter();
+                    try (JsonGenerator generator = createNdjsonGenerator(buffer)) {
+                        int chunkRowCount = 0;
+                        
+                        while (rs.next()) {
+                            writeNdjsonRow(generator, rs, encoder);
+                            rowCount++;
+                            
+                            if (++chunkRowCount >= chunkRows) {
+                                sendChunk(context, chunkCount++, chunkRowCount, takeNdjson(generator, buffer));
+                                chunkRowCount = 0;
+                            }
+                        }
+                        
+                        if (chunkRowCount > 0) {
+                            sendChunk(context, chunkCount++, chunkRowCount, takeNdjson(generator, buffer));
+                        }
+                    }
                 }
             }
         }
         
-        return resultList;
+        Map<String, Object> summary = streamSummary(context, rowCount, chunkCount, columnNames);
+        if (decision.getNote() != null) {
+            summary.put("costGuard", decision.getNote());
+        }
+        return summary;
+    }
+    
+    /**
+     * 以流式模式并行读取各分区
+     * 分区线程将编码好的NDJSON分块放入有界队列，由当前线程统一推送给客户端；
+     * 有序合并时依次转发各分区的队列，无序合并时所有分区共用一个队列按到达顺序转发
+     *
+     * @param config 数据库配置信息
+     * @param plan 扫描计划
+     * @param context 工具调用上下文
+     * @return 汇总信息
+     * @throws Exception 如果任一分区查询失败或推送失败
+     */
+    private Map<String, Object> streamPartitioned(DatabaseConfig config, ScanPlan plan,
+                                                  ToolCallContext context) throws Exception {
+        int partitions = plan.size();
+        int chunkRows = Math.max(1, config.getChunkRows());
+        AtomicReference<String[]> columnNames = new AtomicReference<>();
+        BlockingQueue<ScanChunk> sharedQueue = config.isOrderedMerge()
+            ? null : new ArrayBlockingQueue<>(partitions * PARTITION_QUEUE_CAPACITY);
+        List<BlockingQueue<ScanChunk>> queues = new ArrayList<>(partitions);
+        long rowCount = 0;
+        int chunkCount = 0;
+        
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            for (int i = 0; i < partitions; i++) {
+                BlockingQueue<ScanChunk> queue = sharedQueue != null
+                    ? sharedQueue : new ArrayBlockingQueue<>(PARTITION_QUEUE_CAPACITY);
+                queues.add(queue);
+                int partition = i;
+                executor.execute(ToolCallContext.propagate(
+                    () -> streamPartition(config, plan, partition, chunkRows, queue, columnNames)));
+            }
+            
+            int finished = 0;
+            int current = 0;
+            while (finished < partitions) {
+                ScanChunk chunk = queues.get(current).take();
+                if (chunk.error != null) {
+                    throw chunk.error;
+                }
+                if (chunk.ndjson == null) {
+                    // 分区读取完毕，有序合并时转向下一个分区
+                    finished++;
+                    if (sharedQueue == null) {
+                        current++;
+                    }
+                    continue;
+                }
+                sendChunk(context, chunkCount++, chunk.rows, chunk.ndjson);
+                rowCount += chunk.rows;
+            }
+        } finally {
+            // 推送失败或分区出错时中断其余分区，阻塞在队列上的分区线程随之退出并释放连接
+            executor.shutdownNow();
+        }
+        
+        Map<String, Object> summary = streamSummary(context, rowCount, chunkCount,
+            columnNames.get() != null ? columnNames.get() : new String[0]);
+        summary.put("partitions", partitions);
+        return summary;
+    }
+    
+    /**
+     * 读取单个分区并将NDJSON分块放入队列，结束时放入结束标记，出错时放入错误标记
+     */
+    private void streamPartition(DatabaseConfig config, ScanPlan plan, int partition, int chunkRows,
+                                 BlockingQueue<ScanChunk> queue, AtomicReference<String[]> columnNames) {
+        ScanChunk end;
+        try (Connection connection = dataSourceRegistry.getReadConnection(config)) {
+            connection.setAutoCommit(false);
+            
+            try (PreparedStatement stmt = preparePartition(config, connection, plan, partition);
+                 QueryCancellationRegistry.Registration registration = queryCancellationRegistry.register(stmt)) {
+                stmt.setFetchSize(streamingFetchSize(config));
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    ResultSetJsonEncoder encoder = ResultSetJsonEncoder.forMetaData(rs.getMetaData(), resolveLobReader(config));
+                    columnNames.compareAndSet(null, encoder.getColumnNames());
+                    
+                    StringWriter buffer = new StringWriter();
+                    try (JsonGenerator generator = createNdjsonGenerator(buffer)) {
+                        int chunkRowCount = 0;
+                        
+                        while (rs.next()) {
+                            writeNdjsonRow(generator, rs, encoder);
+                            if (++chunkRowCount >= chunkRows) {
+                                queue.put(new ScanChunk(chunkRowCount, takeNdjson(generator, buffer), null));
+                                chunkRowCount = 0;
+                            }
+                        }
+                        
+                        if (chunkRowCount > 0) {
+                            queue.put(new ScanChunk(chunkRowCount, takeNdjson(generator, buffer), null));
+                        }
+                    }
+                }
+            }
+            end = new ScanChunk(0, null, null);
+        } catch (InterruptedException e) {
+            // 调用方已放弃本次扫描
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            end = new ScanChunk(0, null, e);
+        }
+        
+        try {
+            queue.put(end);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * 创建写入NDJSON的生成器，整个查询过程中复用
+     */
+    private JsonGenerator createNdjsonGenerator(StringWriter buffer) throws IOException {
+        JsonGenerator generator = jsonFactory.createGenerator(buffer);
+        // 行之间使用换行分隔，不使用默认的空格分隔符
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+    
+    /**
+     * 将结果集当前行编码为一行NDJSON
+     */
+    private void writeNdjsonRow(JsonGenerator generator, ResultSet rs, ResultSetJsonEncoder encoder)
+            throws IOException, SQLException {
+        encoder.writeRowObject(generator, rs);
+        generator.writeRaw('\n');
+    }
+    
+    /**
+     * 取出缓冲区中已编码的NDJSON，并清空缓冲区
+     */
+    private String takeNdjson(JsonGenerator generator, StringWriter buffer) throws IOException {
+        generator.flush();
+        String ndjson = buffer.toString();
+        buffer.getBuffer().setLength(0);
+        return ndjson;
+    }
+    
+    /**
+     * 生成流式查询的汇总信息
+     */
+    private Map<String, Object> streamSummary(ToolCallContext context, long rowCount, int chunkCount,
+                                              String[] columnNames) {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("streamed", true);
+        summary.put("tool_call_id", context.getToolCallId());
+        summary.put("rowCount", rowCount);
+        summary.put("chunkCount", chunkCount);
+        summary.put("columns", Arrays.asList(columnNames));
+        return summary;
+    }
+    
+    /**
+     * 将NDJSON分块推送给客户端
+     */
+    private void sendChunk(ToolCallContext context, int seq, int rows, String ndjson) throws IOException {
+        Map<String, Object> chunkEvent = new HashMap<>();
+        chunkEvent.put("tool_call_id", context.getToolCallId());
+        chunkEvent.put("seq", seq);
+        chunkEvent.put("rows", rows);
+        chunkEvent.put("ndjson", ndjson);
+        // 客户端断开时抛出异常，结束查询并释放连接
+        sseEmitterService.sendEvent(context.getClientId(), "query_chunk", chunkEvent);
+    }
+    
+    /**
+     * 确定要执行的SQL，未提供SQL时查询整张表
+     */
+    private String resolveSql(DatabaseConfig config) {
+        String sql = config.getSql();
+        // 如果SQL为空，则使用默认查询语句
+        if (sql == null || sql.trim().isEmpty()) {
+            sql = "SELECT * FROM " + config.getTableName();
+        }
+        return sql;
+    }
+    
+    /**
+     * 确定要执行的SQL并绑定参数
+     */
+    private BoundSql bindSql(DatabaseConfig config) {
+        return BoundSql.of(resolveSql(config), config.getParams(), config.getNamedParams());
+    }
+    
+    /**
+     * 确定流式读取的fetchSize
+     * MySQL驱动默认会把整个结果集读入内存，未开启useCursorFetch时需要使用Integer.MIN_VALUE逐行流式读取
+     */
+    private int streamingFetchSize(DatabaseConfig config) {
+        String url = config.getUrl();
+        if (SqlDialect.fromUrl(url) == SqlDialect.MYSQL && !url.contains("useCursorFetch=true")) {
+            return Integer.MIN_VALUE;
+        }
+        return Math.max(1, config.getFetchSize());
+    }
+    
+    /**
+     * 并行扫描计划
+     * 分区i读取分区键在[bounds[i], bounds[i+1])范围内的行
+     */
+    private static final class ScanPlan {
+        private final String sql;
+        private final BoundSql boundSql;
+        private final List<BigInteger> bounds;
+        
+        private ScanPlan(String sql, BoundSql boundSql, List<BigInteger> bounds) {
+            this.sql = sql;
+            this.boundSql = boundSql;
+            this.bounds = bounds;
+        }
+        
+        private int size() {
+            return bounds.size() - 1;
+        }
+    }
+    
+    /**
+     * 结果集处理器
+     */
+    @FunctionalInterface
+    public interface ResultSetHandler<T> {
+        /**
+         * 消费打开的结果集
+         *
+         * @param rs 位于第一行之前的结果集
+         * @return 处理结果
+         * @throws Exception 如果处理过程中发生错误
+         */
+        T handle(ResultSet rs) throws Exception;
+    }
+    
+    /**
+     * 并行流式扫描中分区线程产生的NDJSON分块
+     * ndjson为null表示分区结束，error不为null表示分区出错
+     */
+    private static final class ScanChunk {
+        private final int rows;
+        private final String ndjson;
+        private final Exception error;
+        
+        private ScanChunk(int rows, String ndjson, Exception error) {
+            this.rows = rows;
+            this.ndjson = ndjson;
+            this.error = error;
+        }
     }
-} 
\ No newline at end of file
+}
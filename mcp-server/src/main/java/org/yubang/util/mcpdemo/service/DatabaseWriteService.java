@@ -0,0 +1,376 @@
+package org.yubang.util.mcpdemo.service;
+
+import cn.hutool.json.JSONUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.stereotype.Service;
+import org.yubang.util.mcpdemo.config.DatabaseProperties;
+import org.yubang.util.mcpdemo.model.DatabaseConfig;
+import org.yubang.util.mcpdemo.model.WriteConfig;
+import org.yubang.util.mcpdemo.model.WriteResult;
+import org.yubang.util.mcpdemo.util.SqlDialect;
+import org.yubang.util.mcpdemo.util.WriteSql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 数据库批量写入服务
+ * 所有行绑定到同一条预编译语句，通过addBatch/executeBatch按批次发送，每批提交一次；
+ * 写入始终在主库执行，成功提交后使该数据源的查询结果缓存失效
+ */
+@Service
+public class DatabaseWriteService {
+    private static final Logger log = LoggerFactory.getLogger(DatabaseWriteService.class);
+    
+    private final DataSourceRegistry dataSourceRegistry;
+    
+    private final DataSourceCatalog dataSourceCatalog;
+    
+    private final JdbcExecutor jdbcExecutor;
+    
+    private final QueryResultCache queryResultCache;
+    
+    private final QueryCancellationRegistry queryCancellationRegistry;
+    
+    private final DatabaseProperties databaseProperties;
+    
+    // 解析NDJSON行，小数保留为BigDecimal以免丢失精度
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    
+    public DatabaseWriteService(DataSourceRegistry dataSourceRegistry, DataSourceCatalog dataSourceCatalog,
+                                JdbcExecutor jdbcExecutor, QueryResultCache queryResultCache,
+                                QueryCancellationRegistry queryCancellationRegistry, DatabaseProperties databaseProperties) {
+        this.dataSourceRegistry = dataSourceRegistry;
+        this.dataSourceCatalog = dataSourceCatalog;
+        this.jdbcExecutor = jdbcExecutor;
+        this.queryResultCache = queryResultCache;
+        this.queryCancellationRegistry = queryCancellationRegistry;
+        this.databaseProperties = databaseProperties;
+    }
+    
+    /**
+     * 批量写入数据
+     *
+     * @param config 写入配置
+     * @return 写入结果，包含行数、批次数和写入速度
+     * @throws Exception 如果写入过程中发生错误，异常信息中包含出错前已提交的行数
+     */
+    @Tool(name = "数据库批量写入", description = "向数据表批量插入或更新数据，写入在主库执行，每batchSize行提交一次；"
+            + "数据通过columns+rows(每行为按columns顺序排列的值)传入，或通过ndjson传入(每行一个JSON数组或以列名为键的JSON对象)，"
+            + "数据量大时可分多次调用，每次传入一块；mode为upsert时主键或唯一键冲突的行会被更新，"
+            + "PostgreSQL和H2需要通过keyColumns指定判断冲突的键列；"
+            + "中途失败时之前的批次已经提交，错误信息中会给出已提交的行数，可从该行之后继续写入；"
+            + "服务端默认关闭写入，开启后也只能写入允许列表中的表")
+    public WriteResult writeRows(WriteConfig config) throws Exception {
+        DatabaseProperties.Write writeProperties = databaseProperties.getWrite();
+        if (!writeProperties.isEnabled()) {
+            throw new IllegalStateException("服务端未开启数据写入");
+        }
+        DatabaseConfig target = config.getDatabaseConfig();
+        if (target == null) {
+            throw new IllegalArgumentException("缺少数据库配置databaseConfig");
+        }
+        dataSourceCatalog.resolve(target);
+        String tableName = config.getTableName() != null && !config.getTableName().trim().isEmpty()
+            ? config.getTableName() : target.getTableName();
+        if (tableName == null || writeProperties.getAllowedTables().stream().noneMatch(tableName::equalsIgnoreCase)) {
+            throw new IllegalArgumentException("表 " + tableName + " 不在允许写入的表中(mcp.database.write.allowed-tables)");
+        }
+        
+        List<String> columns = resolveColumns(config);
+        String sql = WriteSql.build(tableName, columns, config.getMode(), config.getKeyColumns(),
+            SqlDialect.fromUrl(target.getUrl()));
+        
+        // 超出行数上限时在写入任何数据之前拒绝
+        long rowCount = countRows(config);
+        if (writeProperties.getMaxRows() > 0 && rowCount > writeProperties.getMaxRows()) {
+            throw new IllegalArgumentException("单次最多写入 " + writeProperties.getMaxRows() + " 行，本次共 "
+                + rowCount + " 行，请分多次调用");
+        }
+        if (rowCount == 0) {
+            throw new IllegalArgumentException("没有要写入的数据，请通过rows或ndjson传入");
+        }
+        
+        int batchSize = resolveBatchSize(config.getBatchSize(), writeProperties);
+        WriteResult result = new WriteResult();
+        result.setTableName(tableName);
+        result.setMode(config.getMode() == null || config.getMode().isEmpty()
+            ? WriteSql.INSERT : config.getMode().toLowerCase(Locale.ROOT));
+        result.setBatchSize(batchSize);
+        
+        long start = System.nanoTime();
+        try {
+            jdbcExecutor.execute(target, () -> {
+                write(target, sql, columns, config, batchSize, result);
+                return null;
+            });
+        } finally {
+            if (result.getBatches() > 0) {
+                // 副本存在复制延迟，失效后短时间内从副本读到的仍可能是旧数据
+                queryResultCache.invalidate(dataSourceRegistry.fingerprint(target));
+            }
+        }
+        
+        long elapsedNanos = System.nanoTime() - start;
+        result.setElapsedMs(elapsedNanos / 1_000_000);
+        result.setRowsPerSecond(elapsedNanos == 0 ? 0
+            : Math.round(result.getRowsWritten() * 1_000_000_000.0 / elapsedNanos * 10) / 10.0);
+        log.info("批量写入表 {} 完成: {} 行, {} 批, 耗时 {}ms, {} 行/秒", tableName, result.getRowsWritten(),
+            result.getBatches(), result.getElapsedMs(), result.getRowsPerSecond());
+        return result;
+    }
+    
+    /**
+     * 在主库连接上按批次执行写入
+     * 关闭自动提交，每批executeBatch后提交；出错时回滚当前批次，异常信息中给出已提交的行数
+     */
+    private void write(DatabaseConfig config, String sql, List<String> columns, WriteConfig writeConfig,
+                       int batchSize, WriteResult result) throws Exception {
+        try (Connection connection = dataSourceRegistry.getConnection(config);
+             PreparedStatement stmt = dataSourceRegistry.prepareStatement(config, connection, sql);
+             QueryCancellationRegistry.Registration registration = queryCancellationRegistry.register(stmt)) {
+            DatabaseProperties.Query queryProperties = databaseProperties.getQuery();
+            int timeoutSeconds = resolveTimeoutSeconds(config.getQueryTimeoutSeconds(), queryProperties);
+            if (timeoutSeconds > 0) {
+                stmt.setQueryTimeout(timeoutSeconds);
+            }
+            
+            connection.setAutoCommit(false);
+            BatchWriter writer = new BatchWriter(connection, stmt, columns.size(), batchSize, result);
+            try {
+                if (writeConfig.getRows() != null) {
+                    for (List<Object> row : writeConfig.getRows()) {
+                        writer.add(row);
+                    }
+                }
+                if (writeConfig.getNdjson() != null) {
+                    Iterator<String> lines = writeConfig.getNdjson().lines().iterator();
+                    while (lines.hasNext()) {
+                        String line = lines.next();
+                        if (!line.isBlank()) {
+                            writer.add(parseLine(line, columns));
+                        }
+                    }
+                }
+                writer.flush();
+            } catch (Exception e) {
+                rollbackQuietly(connection);
+                throw describeFailure(e, result);
+            } finally {
+                restoreAutoCommitQuietly(connection);
+            }
+        }
+    }
+    
+    /**
+     * 确定写入的列：优先使用columns，否则取NDJSON第一个对象行的键
+     */
+    private List<String> resolveColumns(WriteConfig config) throws JsonProcessingException {
+        if (config.getColumns() != null && !config.getColumns().isEmpty()) {
+            return config.getColumns();
+        }
+        if (config.getRows() != null && !config.getRows().isEmpty()) {
+            throw new IllegalArgumentException("使用rows传入数据时必须通过columns指定列名");
+        }
+        if (config.getNdjson() != null) {
+            String first = config.getNdjson().lines().filter(line -> !line.isBlank()).findFirst().orElse(null);
+            if (first != null) {
+                JsonNode node = objectMapper.readTree(first);
+                if (!node.isObject()) {
+                    throw new IllegalArgumentException("NDJSON行为数组时必须通过columns指定列名");
+                }
+                List<String> columns = new ArrayList<>();
+                node.fieldNames().forEachRemaining(columns::add);
+                return columns;
+            }
+        }
+        throw new IllegalArgumentException("没有要写入的数据，请通过rows或ndjson传入");
+    }
+    
+    private long countRows(WriteConfig config) {
+        long count = config.getRows() != null ? config.getRows().size() : 0;
+        if (config.getNdjson() != null) {
+            count += config.getNdjson().lines().filter(line -> !line.isBlank()).count();
+        }
+        return count;
+    }
+    
+    /**
+     * 将一行NDJSON解析为按列顺序排列的值，对象行中缺少的列写入NULL
+     */
+    private List<Object> parseLine(String line, List<String> columns) throws JsonProcessingException {
+        JsonNode node = objectMapper.readTree(line);
+        List<Object> row = new ArrayList<>(columns.size());
+        if (node.isArray()) {
+            node.forEach(element -> row.add(toValue(element)));
+            return row;
+        }
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("NDJSON的每一行必须是JSON数组或对象: " + line);
+        }
+        
+        Map<String, JsonNode> fields = new HashMap<>();
+        node.fields().forEachRemaining(field -> fields.put(field.getKey().toLowerCase(Locale.ROOT), field.getValue()));
+        for (String column : columns) {
+            JsonNode value = fields.remove(column.toLowerCase(Locale.ROOT));
+            row.add(value == null ? null : toValue(value));
+        }
+        if (!fields.isEmpty()) {
+            throw new IllegalArgumentException("NDJSON行中包含未写入的列: " + fields.keySet());
+        }
+        return row;
+    }
+    
+    /**
+     * JSON值转换为绑定参数，嵌套的数组和对象以JSON文本写入
+     */
+    private Object toValue(JsonNode node) {
+        if (node.isNull()) {
+            return null;
+        }
+        if (node.isNumber()) {
+            return node.numberValue();
+        }
+        if (node.isBoolean()) {
+            return node.booleanValue();
+        }
+        if (node.isTextual()) {
+            return node.textValue();
+        }
+        return node.toString();
+    }
+    
+    private int resolveBatchSize(Integer requested, DatabaseProperties.Write writeProperties) {
+        int batchSize = requested != null && requested > 0 ? requested : writeProperties.getDefaultBatchSize();
+        return Math.min(batchSize, writeProperties.getMaxBatchSize());
+    }
+    
+    private int resolveTimeoutSeconds(Integer requested, DatabaseProperties.Query queryProperties) {
+        int value = requested != null ? requested : queryProperties.getDefaultTimeoutSeconds();
+        int maxValue = queryProperties.getMaxTimeoutSeconds();
+        if (maxValue > 0 && (value <= 0 || value > maxValue)) {
+            return maxValue;
+        }
+        return value;
+    }
+    
+    private void rollbackQuietly(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            log.warn("回滚写入失败: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 恢复自动提交，连接已损坏时失败不覆盖写入本身的异常，连接池会在归还时丢弃该连接
+     */
+    private void restoreAutoCommitQuietly(Connection connection) {
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            log.warn("恢复自动提交失败: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 在异常信息中补充已提交的行数，调用方据此从失败的位置继续写入
+     */
+    private Exception describeFailure(Exception e, WriteResult result) {
+        String message = "写入失败，已提交 " + result.getRowsWritten() + " 行(" + result.getBatches() + " 批): ";
+        if (e instanceof SQLException) {
+            SQLException sqlException = (SQLException) e;
+            // 批量执行的具体原因通常在下一个异常中，如PostgreSQL
+            String detail = sqlException.getNextException() != null
+                ? sqlException.getNextException().getMessage() : sqlException.getMessage();
+            return new SQLException(message + detail, sqlException.getSQLState(), sqlException.getErrorCode(), e);
+        }
+        if (e instanceof IllegalArgumentException || e instanceof JsonProcessingException) {
+            return new IllegalArgumentException(message + e.getMessage(), e);
+        }
+        return e;
+    }
+    
+    /**
+     * 按批次累积行并执行
+     */
+    private static class BatchWriter {
+        private final Connection connection;
+        private final PreparedStatement statement;
+        private final int columnCount;
+        private final int batchSize;
+        private final WriteResult result;
+        private int pending;
+        private long rowNumber;
+        private long affectedRows;
+        private boolean affectedKnown = true;
+        
+        private BatchWriter(Connection connection, PreparedStatement statement, int columnCount, int batchSize,
+                            WriteResult result) {
+            this.connection = connection;
+            this.statement = statement;
+            this.columnCount = columnCount;
+            this.batchSize = batchSize;
+            this.result = result;
+        }
+        
+        private void add(List<Object> row) throws SQLException {
+            rowNumber++;
+            if (row == null || row.size() != columnCount) {
+                throw new IllegalArgumentException("第 " + rowNumber + " 行有 " + (row == null ? 0 : row.size())
+                    + " 个值，与列数 " + columnCount + " 不一致");
+            }
+            for (int i = 0; i < columnCount; i++) {
+                Object value = row.get(i);
+                if (value == null) {
+                    statement.setNull(i + 1, Types.NULL);
+                } else if (value instanceof Map || value instanceof Collection) {
+                    statement.setObject(i + 1, JSONUtil.toJsonStr(value));
+                } else {
+                    statement.setObject(i + 1, value);
+                }
+            }
+            statement.addBatch();
+            if (++pending >= batchSize) {
+                flush();
+            }
+        }
+        
+        private void flush() throws SQLException {
+            if (pending == 0) {
+                return;
+            }
+            int[] counts = statement.executeBatch();
+            connection.commit();
+            
+            result.setRowsWritten(result.getRowsWritten() + pending);
+            result.setBatches(result.getBatches() + 1);
+            for (int count : counts) {
+                if (count >= 0) {
+                    affectedRows += count;
+                } else if (count == Statement.SUCCESS_NO_INFO) {
+                    affectedKnown = false;
+                }
+            }
+            result.setAffectedRows(affectedKnown ? affectedRows : null);
+            pending = 0;
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package org.yubang.util.mcpdemo.service;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.stereotype.Service;
+import org.yubang.util.mcpdemo.config.ExcelProperties;
+import org.yubang.util.mcpdemo.model.ExcelConfig;
+import org.yubang.util.mcpdemo.model.ExportJobStatus;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步Excel导出任务服务
+ * 提交后立即返回任务ID，导出在固定数量的工作线程上执行，等待队列有界，队列已满时立即拒绝；
+ * 执行过程中按时间间隔通过提交者的SSE连接推送export_progress事件，
+ * 任务结束时推送最后一个事件，完成时其中携带下载句柄。客户端断开时取消其全部任务，
+ * 客户端重连替换旧的SSE连接不视为断开
+ */
+@Service
+public class ExportJobService {
+    private static final Logger log = LoggerFactory.getLogger(ExportJobService.class);
+    
+    public static final String STATUS_QUEUED = "queued";
+    
+    public static final String STATUS_RUNNING = "running";
+    
+    public static final String STATUS_COMPLETED = "completed";
+    
+    public static final String STATUS_FAILED = "failed";
+    
+    public static final String STATUS_CANCELLED = "cancelled";
+    
+    private static final String PROGRESS_EVENT = "export_progress";
+    
+    private final ExcelExportService excelExportService;
+    
+    private final SseEmitterService sseEmitterService;
+    
+    private final TempFileStore tempFileStore;
+    
+    private final ExcelProperties excelProperties;
+    
+    // 任务ID -> 任务，结束的任务保留到下载文件过期
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    
+    private final ThreadPoolExecutor executor;
+    
+    public ExportJobService(ExcelExportService excelExportService, SseEmitterService sseEmitterService,
+                            TempFileStore tempFileStore, ExcelProperties excelProperties) {
+        this.excelExportService = excelExportService;
+        this.sseEmitterService = sseEmitterService;
+        this.tempFileStore = tempFileStore;
+        this.excelProperties = excelProperties;
+        int workers = Math.max(1, excelProperties.getJobWorkers());
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, excelProperties.getJobQueueCapacity())),
+            Thread.ofVirtual().name("excel-export-", 0).factory());
+        sseEmitterService.addDisconnectListener(this::cancelAll);
+    }
+    
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+    
+    /**
+     * 提交异步导出任务
+     *
+     * @param config Excel导出配置
+     * @return 排队中的任务状态，包含任务ID
+     */
+    @Tool(name = "提交Excel导出任务", description = "异步导出Excel表格，参数与导出Excel表格相同，立即返回jobId，导出在服务端后台执行，"
+            + "适合数据量大、耗时较长的导出；执行过程中通过SSE推送export_progress事件(rowsWritten、percent、etaSeconds)，"
+            + "最后一个事件的status为completed(result中包含handle和downloadUrl)、failed或cancelled；"
+            + "只支持以文件方式返回，必须通过SSE连接调用")
+    public ExportJobStatus submitExport(ExcelConfig config) {
+        ToolCallContext context = ToolCallContext.current();
+        if (context == null || !sseEmitterService.hasEmitter(context.getClientId())) {
+            throw new IllegalStateException("异步导出需要通过SSE连接调用");
+        }
+        if (ExcelExportService.DELIVERY_BASE64.equalsIgnoreCase(config.getDelivery())) {
+            throw new IllegalArgumentException("异步导出只支持以文件方式返回(delivery=file)");
+        }
+        config.setDelivery(ExcelExportService.DELIVERY_FILE);
+        purgeExpired();
+        
+        Job job = new Job(UUID.randomUUID().toString().replace("-", ""), context, config);
+        jobs.put(job.id, job);
+        try {
+            job.future = executor.submit(ToolCallContext.propagate(() -> run(job)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new RejectedExecutionException("导出任务队列已满(最多排队 " + excelProperties.getJobQueueCapacity()
+                + " 个)，请稍后重试");
+        }
+        log.info("客户端 {} 提交导出任务 {}", job.clientId, job.id);
+        return job.snapshot();
+    }
+    
+    /**
+     * 取消当前客户端的异步导出任务
+     *
+     * @param jobId 任务ID
+     * @return 取消后的任务状态
+     */
+    @Tool(name = "取消Excel导出任务", description = "取消排队中或正在执行的异步导出任务，"
+            + "任务停止时推送status为cancelled的export_progress事件")
+    public ExportJobStatus cancelExport(String jobId) {
+        ToolCallContext context = ToolCallContext.current();
+        if (context == null) {
+            throw new IllegalStateException("取消导出任务需要通过SSE连接调用");
+        }
+        Job job = findJob(jobId, context.getClientId());
+        if (job == null) {
+            throw new IllegalArgumentException("导出任务不存在: " + jobId);
+        }
+        cancel(job, "导出任务已取消");
+        return job.snapshot();
+    }
+    
+    /**
+     * 取消客户端自己的任务，排队中的任务直接移出队列，执行中的任务取消其查询语句并立即停止
+     *
+     * @param jobId 任务ID
+     * @param clientId 提交任务的客户端ID
+     * @return 任务属于该客户端且尚未结束时返回true
+     */
+    public boolean cancel(String jobId, String clientId) {
+        Job job = findJob(jobId, clientId);
+        return job != null && cancel(job, "导出任务已取消");
+    }
+    
+    /**
+     * 取消客户端的全部任务
+     *
+     * @param clientId 客户端ID
+     * @return 取消的任务数
+     */
+    public int cancelAll(String clientId) {
+        int count = 0;
+        for (Job job : jobs.values()) {
+            if (job.clientId.equals(clientId) && cancel(job, "客户端连接已断开")) {
+                count++;
+            }
+        }
+        if (count > 0) {
+            log.info("客户端 {} 已断开，取消 {} 个导出任务", clientId, count);
+        }
+        return count;
+    }
+    
+    /**
+     * 查询客户端自己的任务状态
+     *
+     * @param jobId 任务ID
+     * @param clientId 提交任务的客户端ID
+     * @return 任务状态，任务不存在、已过期或不属于该客户端时返回null
+     */
+    public ExportJobStatus getStatus(String jobId, String clientId) {
+        Job job = findJob(jobId, clientId);
+        return job == null ? null : job.snapshot();
+    }
+    
+    /**
+     * 列出客户端自己的任务状态
+     * 完成的任务状态中包含下载句柄，不提供跨客户端的列表
+     *
+     * @param clientId 客户端ID
+     * @return 任务状态列表
+     */
+    public List<ExportJobStatus> listStatus(String clientId) {
+        List<ExportJobStatus> result = new ArrayList<>();
+        for (Job job : jobs.values()) {
+            if (job.clientId.equals(clientId)) {
+                result.add(job.snapshot());
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * 查找属于指定客户端的任务，其他客户端的任务视为不存在
+     */
+    private Job findJob(String jobId, String clientId) {
+        Job job = jobId == null ? null : jobs.get(jobId);
+        return job != null && job.clientId.equals(clientId) ? job : null;
+    }
+    
+    private boolean cancel(Job job, String reason) {
+        boolean queued;
+        synchronized (job) {
+            if (job.isFinished()) {
+                return false;
+            }
+            job.cancelled = true;
+            job.error = reason;
+            queued = STATUS_QUEUED.equals(job.status);
+            if (queued) {
+                job.finish(STATUS_CANCELLED, null, reason);
+            }
+        }
+        if (queued) {
+            // 从等待队列中移除，腾出排队名额
+            Future<?> future = job.future;
+            if (future != null) {
+                future.cancel(false);
+                executor.remove((Runnable) future);
+            }
+            sendProgress(job);
+        } else {
+            // 执行中的任务直接取消其查询语句，查询还在数据库中执行时也能立即停止
+            job.cancelStatement();
+        }
+        log.info("导出任务 {} 已取消: {}", job.id, reason);
+        return true;
+    }
+    
+    /**
+     * 在工作线程上执行任务
+     */
+    private void run(Job job) {
+        synchronized (job) {
+            if (job.cancelled) {
+                return;
+            }
+            job.status = STATUS_RUNNING;
+            job.startedAt = System.nanoTime();
+        }
+        
+        try {
+            job.estimatedRows = excelExportService.estimateRows(job.config);
+        } catch (Exception e) {
+            log.debug("无法估算导出任务 {} 的行数: {}", job.id, e.getMessage());
+        }
+        sendProgress(job);
+        
+        try {
+            JSONObject result = JSONUtil.parseObj(excelExportService.export(job.config, job));
+            synchronized (job) {
+                if (result.containsKey("error")) {
+                    job.finish(STATUS_FAILED, null, result.getStr("error"));
+                } else {
+                    job.finish(STATUS_COMPLETED, new LinkedHashMap<>(result), null);
+                }
+            }
+        } catch (Exception e) {
+            synchronized (job) {
+                if (job.cancelled) {
+                    job.finish(STATUS_CANCELLED, null, job.error);
+                } else {
+                    log.warn("导出任务 {} 失败: {}", job.id, e.getMessage());
+                    job.finish(STATUS_FAILED, null, e.getMessage());
+                }
+            }
+        }
+        log.info("导出任务 {} 结束: {}, {} 行", job.id, job.status, job.rowsWritten);
+        sendProgress(job);
+    }
+    
+    /**
+     * 向提交任务的客户端推送进度事件，客户端已断开时不再推送
+     */
+    private void sendProgress(Job job) {
+        job.lastProgressAt = System.currentTimeMillis();
+        if (sseEmitterService.hasEmitter(job.clientId)) {
+            sseEmitterService.sendEventSafely(job.clientId, PROGRESS_EVENT, job.snapshot());
+        }
+    }
+    
+    /**
+     * 移除下载文件已过期的已结束任务
+     */
+    private void purgeExpired() {
+        long expiredBefore = System.nanoTime() - TimeUnit.SECONDS.toNanos(tempFileStore.getTtlSeconds());
+        jobs.values().removeIf(job -> {
+            synchronized (job) {
+                return job.isFinished() && job.finishedAt - expiredBefore < 0;
+            }
+        });
+    }
+    
+    /**
+     * 导出任务，同时作为导出的进度监听器
+     */
+    private class Job implements ExportListener {
+        private final String id;
+        private final String clientId;
+        private final String toolCallId;
+        private final ExcelConfig config;
+        private volatile Future<?> future;
+        private volatile Statement statement;
+        private volatile boolean cancelled;
+        private volatile long rowsWritten;
+        private volatile Long estimatedRows;
+        private volatile long lastProgressAt;
+        // 以下字段在synchronized(this)内读写
+        private String status = STATUS_QUEUED;
+        private long startedAt;
+        private long finishedAt;
+        private Map<String, Object> result;
+        private String error;
+        
+        Job(String id, ToolCallContext context, ExcelConfig config) {
+            this.id = id;
+            this.clientId = context.getClientId();
+            this.toolCallId = context.getToolCallId();
+            this.config = config;
+        }
+        
+        @Override
+        public void onRowsWritten(long rowsWritten) {
+            this.rowsWritten = rowsWritten;
+            if (System.currentTimeMillis() - lastProgressAt >= excelProperties.getJobProgressIntervalMs()) {
+                sendProgress(this);
+            }
+        }
+        
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+        
+        @Override
+        public void onStatement(Statement statement) {
+            this.statement = statement;
+            // 语句登记前任务已被取消时直接取消
+            if (cancelled) {
+                cancelStatement();
+            }
+        }
+        
+        void cancelStatement() {
+            Statement current = statement;
+            if (current == null) {
+                return;
+            }
+            try {
+                current.cancel();
+            } catch (SQLException e) {
+                // 语句可能已经执行完毕并关闭
+                log.debug("取消导出任务 {} 的查询失败: {}", id, e.getMessage());
+            }
+        }
+        
+        boolean isFinished() {
+            return finishedAt != 0;
+        }
+        
+        void finish(String status, Map<String, Object> result, String error) {
+            this.status = status;
+            this.result = result;
+            this.error = error;
+            this.finishedAt = System.nanoTime();
+        }
+        
+        synchronized ExportJobStatus snapshot() {
+            ExportJobStatus snapshot = new ExportJobStatus();
+            snapshot.setJobId(id);
+            snapshot.setToolCallId(toolCallId);
+            snapshot.setStatus(status);
+            snapshot.setRowsWritten(rowsWritten);
+            snapshot.setEstimatedRows(estimatedRows);
+            snapshot.setResult(result);
+            snapshot.setError(STATUS_COMPLETED.equals(status) ? null : error);
+            if (startedAt == 0) {
+                return snapshot;
+            }
+            
+            long elapsedMs = ((isFinished() ? finishedAt : System.nanoTime()) - startedAt) / 1_000_000;
+            long rowsPerSecond = elapsedMs > 0 ? rowsWritten * 1000 / elapsedMs : 0;
+            snapshot.setElapsedMs(elapsedMs);
+            snapshot.setRowsPerSecond(rowsPerSecond);
+            if (STATUS_COMPLETED.equals(status)) {
+                snapshot.setPercent(100.0);
+                snapshot.setEtaSeconds(0L);
+            } else if (STATUS_RUNNING.equals(status) && estimatedRows != null && estimatedRows > rowsWritten) {
+                // 已写入的行数超过估算值后不再报告进度和剩余时间
+                snapshot.setPercent(Math.floor(rowsWritten * 1000.0 / estimatedRows) / 10);
+                if (rowsPerSecond > 0) {
+                    snapshot.setEtaSeconds((estimatedRows - rowsWritten + rowsPerSecond - 1) / rowsPerSecond);
+                }
+            }
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.yubang.util.mcpdemo.service;
+
+import java.sql.Statement;
+
+/**
+ * Excel导出进度监听器
+ * 导出过程中每写入若干行回调一次，并在每行写入前检查是否已取消
+ */
+public interface ExportListener {
+
+    /**
+     * 不关心进度的同步导出使用的监听器
+     */
+    ExportListener NONE = new ExportListener() {
+        @Override
+        public void onRowsWritten(long rowsWritten) {
+        }
+        
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+    
+    /**
+     * 已写入若干数据行
+     *
+     * @param rowsWritten 累计写入的数据行数
+     */
+    void onRowsWritten(long rowsWritten);
+    
+    /**
+     * 导出是否已被取消，取消后导出在下一行写入前停止
+     */
+    boolean isCancelled();
+    
+    /**
+     * 导出查询的语句即将执行，取消导出时可以直接取消该语句，使执行中的查询立即停止
+     *
+     * @param statement 即将执行的语句，导出结束后已关闭
+     */
+    default void onStatement(Statement statement) {
+    }
+}
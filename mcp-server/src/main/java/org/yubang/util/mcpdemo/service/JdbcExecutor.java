@@ -0,0 +1,243 @@
+package org.yubang.util.mcpdemo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.yubang.util.mcpdemo.config.DatabaseProperties;
+import org.yubang.util.mcpdemo.model.BulkheadStats;
+import org.yubang.util.mcpdemo.model.DatabaseConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JDBC执行器
+ * 数据库调用在专用的虚拟线程上执行，不占用Web容器的工作线程；
+ * 每个数据源有一个与其连接池大小相同的隔离舱，排队已满或等待超时的调用立即被拒绝，
+ * 一个缓慢的数据库不会拖垮其他数据源的调用
+ */
+@Service
+public class JdbcExecutor {
+    private static final Logger log = LoggerFactory.getLogger(JdbcExecutor.class);
+    
+    // 标记当前线程是否已在隔离舱内执行，嵌套调用直接执行，避免重复占用许可
+    private static final ThreadLocal<Boolean> INSIDE = new ThreadLocal<>();
+    
+    private final DataSourceRegistry dataSourceRegistry;
+    
+    private final DatabaseProperties.Pool poolProperties;
+    
+    private final DatabaseProperties.Bulkhead bulkheadProperties;
+    
+    // 数据源指纹 -> 隔离舱
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    
+    public JdbcExecutor(DataSourceRegistry dataSourceRegistry, DatabaseProperties properties) {
+        this.dataSourceRegistry = dataSourceRegistry;
+        this.poolProperties = properties.getPool();
+        this.bulkheadProperties = properties.getBulkhead();
+    }
+    
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+    
+    /**
+     * 在数据源的隔离舱内执行数据库调用
+     * 当前线程的工具调用上下文会传递到执行线程
+     *
+     * @param config 数据库配置信息，用于确定数据源
+     * @param task 数据库调用
+     * @return 调用结果
+     * @throws RejectedExecutionException 排队已满或等待超时
+     * @throws Exception 调用过程中抛出的异常
+     */
+    public <T> T execute(DatabaseConfig config, Callable<T> task) throws Exception {
+        return execute(config, 1, task);
+    }
+    
+    /**
+     * 在数据源的隔离舱内执行需要同时占用多个连接的数据库调用
+     * 执行前一次性获取permits个许可，调用内部并行使用的连接都计入隔离舱，不会超出连接池的容量
+     *
+     * @param config 数据库配置信息，用于确定数据源
+     * @param permits 调用同时占用的连接数，超出隔离舱容量时按容量计
+     * @param task 数据库调用
+     * @return 调用结果
+     * @throws RejectedExecutionException 排队已满或等待超时
+     * @throws Exception 调用过程中抛出的异常
+     */
+    public <T> T execute(DatabaseConfig config, int permits, Callable<T> task) throws Exception {
+        if (Boolean.TRUE.equals(INSIDE.get())) {
+            return task.call();
+        }
+        
+        String fingerprint = dataSourceRegistry.fingerprint(config);
+        Bulkhead bulkhead = bulkhead(fingerprint, config);
+        int required = Math.max(1, Math.min(permits, bulkhead.maxConcurrent));
+        // 提交时即计入排队数，同时到达的调用不会都看到未满的队列
+        Waiting waiting = bulkhead.enqueue();
+        if (waiting.count > bulkheadProperties.getMaxQueued() && bulkhead.permits.availablePermits() < required) {
+            bulkhead.dequeue(waiting);
+            bulkhead.rejected.increment();
+            throw new RejectedExecutionException("数据源 " + fingerprint + " 排队的查询过多，请稍后重试");
+        }
+        bulkhead.submitted.increment();
+        
+        Future<T> future = null;
+        try {
+            future = executor.submit(ToolCallContext.propagate(() -> bulkhead.run(fingerprint, required, waiting, task)));
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        } finally {
+            // 任务未开始执行就被取消或提交失败时，由这里移出排队
+            bulkhead.dequeue(waiting);
+        }
+    }
+    
+    /**
+     * 获取所有隔离舱的统计信息
+     *
+     * @return 隔离舱统计信息列表
+     */
+    public List<BulkheadStats> getStats() {
+        List<BulkheadStats> stats = new ArrayList<>();
+        bulkheads.forEach((fingerprint, bulkhead) -> stats.add(bulkhead.toStats(fingerprint)));
+        return stats;
+    }
+    
+    private Bulkhead bulkhead(String fingerprint, DatabaseConfig config) {
+        Bulkhead bulkhead = bulkheads.get(fingerprint);
+        if (bulkhead != null) {
+            return bulkhead;
+        }
+        
+        // 数据源数量超出连接池数量上限时，清理空闲的隔离舱
+        if (bulkheads.size() >= poolProperties.getMaxPools()) {
+            bulkheads.entrySet().removeIf(entry -> entry.getValue().isIdle());
+        }
+        // 配置了只读副本时，每个副本都有自己的连接池，可同时执行的查询数相应增加
+        int replicas = config.getReplicaUrls() == null ? 0 : config.getReplicaUrls().size();
+        return bulkheads.computeIfAbsent(fingerprint,
+            key -> new Bulkhead(poolProperties.getMaximumPoolSize() * (1 + replicas)));
+    }
+    
+    /**
+     * 单个数据源的隔离舱
+     */
+    private class Bulkhead {
+        private final int maxConcurrent;
+        private final Semaphore permits;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+        private final LongAdder submitted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder waits = new LongAdder();
+        private final LongAdder queueNanos = new LongAdder();
+        private final AtomicLong maxQueueNanos = new AtomicLong();
+        
+        private Bulkhead(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+            this.permits = new Semaphore(maxConcurrent, true);
+        }
+        
+        private Waiting enqueue() {
+            return new Waiting(queued.incrementAndGet());
+        }
+        
+        private void dequeue(Waiting waiting) {
+            if (waiting.left.compareAndSet(false, true)) {
+                queued.decrementAndGet();
+            }
+        }
+        
+        private <T> T run(String fingerprint, int required, Waiting waiting, Callable<T> task) throws Exception {
+            long start = System.nanoTime();
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(required, bulkheadProperties.getQueueTimeoutMs(), TimeUnit.MILLISECONDS);
+            } finally {
+                dequeue(waiting);
+            }
+            long waited = System.nanoTime() - start;
+            waits.increment();
+            queueNanos.add(waited);
+            maxQueueNanos.accumulateAndGet(waited, Math::max);
+            
+            if (!acquired) {
+                rejected.increment();
+                log.warn("等待数据源 {} 的执行许可超时({}ms)", fingerprint, bulkheadProperties.getQueueTimeoutMs());
+                throw new RejectedExecutionException("数据源 " + fingerprint + " 繁忙，等待执行超时");
+            }
+            
+            active.incrementAndGet();
+            INSIDE.set(Boolean.TRUE);
+            try {
+                return task.call();
+            } finally {
+                INSIDE.remove();
+                active.decrementAndGet();
+                permits.release(required);
+                completed.increment();
+            }
+        }
+        
+        private boolean isIdle() {
+            return queued.get() == 0 && active.get() == 0;
+        }
+        
+        private BulkheadStats toStats(String fingerprint) {
+            BulkheadStats stats = new BulkheadStats();
+            stats.setFingerprint(fingerprint);
+            stats.setMaxConcurrent(maxConcurrent);
+            stats.setActive(active.get());
+            stats.setQueued(queued.get());
+            stats.setSubmitted(submitted.sum());
+            stats.setRejected(rejected.sum());
+            stats.setCompleted(completed.sum());
+            long waitCount = waits.sum();
+            stats.setAvgQueueMs(waitCount == 0 ? 0 : queueNanos.sum() / 1_000_000.0 / waitCount);
+            stats.setMaxQueueMs(maxQueueNanos.get() / 1_000_000.0);
+            return stats;
+        }
+    }
+    
+    /**
+     * 一次调用的排队记录，保证排队数只减一次
+     */
+    private static class Waiting {
+        private final int count;
+        private final AtomicBoolean left = new AtomicBoolean();
+        
+        private Waiting(int count) {
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.yubang.util.mcpdemo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 查询取消注册表
+ * 按SSE客户端记录正在执行的语句，客户端的SSE连接完成、超时或出错时主动取消其所有语句，
+ * 使数据库立即停止执行并释放连接
+ */
+@Service
+public class QueryCancellationRegistry {
+    private static final Logger log = LoggerFactory.getLogger(QueryCancellationRegistry.class);
+    
+    /**
+     * 未关联客户端的语句使用的空注册
+     */
+    private static final Registration NONE = () -> { };
+    
+    // 客户端ID -> 该客户端正在执行的语句
+    private final Map<String, Set<Statement>> statements = new ConcurrentHashMap<>();
+    
+    private final SseEmitterService sseEmitterService;
+    
+    public QueryCancellationRegistry(SseEmitterService sseEmitterService) {
+        this.sseEmitterService = sseEmitterService;
+        sseEmitterService.addDisconnectListener(this::cancelAll);
+    }
+    
+    /**
+     * 将语句登记到当前工具调用所属的客户端
+     * 不是通过SSE控制器发起的调用不做登记
+     *
+     * @param statement 即将执行的语句
+     * @return 注册句柄，语句执行结束后关闭以解除登记
+     */
+    public Registration register(Statement statement) {
+        ToolCallContext context = ToolCallContext.current();
+        if (context == null || context.getClientId() == null) {
+            return NONE;
+        }
+        
+        String clientId = context.getClientId();
+        statements.compute(clientId, (key, owned) -> {
+            Set<Statement> set = owned != null ? owned : ConcurrentHashMap.newKeySet();
+            set.add(statement);
+            return set;
+        });
+        // 登记前客户端已经断开时直接取消
+        if (!sseEmitterService.hasEmitter(clientId)) {
+            cancel(clientId, statement);
+        }
+        return () -> statements.computeIfPresent(clientId, (key, owned) -> {
+            owned.remove(statement);
+            return owned.isEmpty() ? null : owned;
+        });
+    }
+    
+    /**
+     * 取消指定客户端所有正在执行的语句
+     *
+     * @param clientId 客户端ID
+     * @return 取消的语句数
+     */
+    public int cancelAll(String clientId) {
+        Set<Statement> owned = statements.get(clientId);
+        if (owned == null) {
+            return 0;
+        }
+        
+        int count = 0;
+        for (Statement statement : owned) {
+            if (cancel(clientId, statement)) {
+                count++;
+            }
+        }
+        if (count > 0) {
+            log.info("已取消客户端 {} 的 {} 个正在执行的查询", clientId, count);
+        }
+        return count;
+    }
+    
+    /**
+     * 获取各客户端正在执行的语句数
+     *
+     * @return 客户端ID -> 语句数
+     */
+    public Map<String, Integer> getInFlight() {
+        Map<String, Integer> inFlight = new HashMap<>();
+        statements.forEach((clientId, owned) -> inFlight.put(clientId, owned.size()));
+        return inFlight;
+    }
+    
+    private boolean cancel(String clientId, Statement statement) {
+        try {
+            statement.cancel();
+            return true;
+        } catch (SQLException e) {
+            // 语句可能已经执行完毕并关闭
+            log.debug("取消客户端 {} 的查询失败: {}", clientId, e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * 语句注册句柄
+     */
+    public interface Registration extends AutoCloseable {
+        
+        /**
+         * 解除登记
+         */
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,332 @@
+package org.yubang.util.mcpdemo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.yubang.util.mcpdemo.config.DatabaseProperties;
+import org.yubang.util.mcpdemo.model.DatabaseConfig;
+import org.yubang.util.mcpdemo.util.BoundSql;
+import org.yubang.util.mcpdemo.util.SqlDialect;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 查询代价检查
+ * 执行查询前先EXPLAIN，读取优化器估算的扫描行数、全表扫描的表和代价，超出阈值时拒绝执行，
+ * 或限制最多返回的行数后执行，原因返回给调用方。估算值来自数据库的统计信息，不执行查询本身
+ */
+@Service
+public class QueryCostGuard {
+    private static final Logger log = LoggerFactory.getLogger(QueryCostGuard.class);
+    
+    public static final String ACTION_REJECT = "reject";
+    
+    public static final String ACTION_LIMIT = "limit";
+    
+    // H2执行计划中全表扫描的注释，如 /* PUBLIC.ORDERS.tableScan */
+    private static final Pattern H2_TABLE_SCAN = Pattern.compile("/\\*\\s*([\\w$]+)\\.([\\w$]+)\\.tableScan");
+    
+    private static final Decision PASS = new Decision(0, null);
+    
+    private final DatabaseProperties.CostGuard costGuardProperties;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    public QueryCostGuard(DatabaseProperties properties) {
+        this.costGuardProperties = properties.getCostGuard();
+    }
+    
+    /**
+     * 检查查询的估算代价
+     * 不支持EXPLAIN的数据库或EXPLAIN失败时直接放行，由查询本身报告错误
+     *
+     * @param config 数据库配置信息
+     * @param connection 执行查询所用的连接
+     * @param boundSql 即将执行的查询
+     * @return 检查结果，需要限制行数时携带行数上限和原因
+     * @throws IllegalArgumentException 代价超出阈值且处理方式为reject
+     */
+    public Decision check(DatabaseConfig config, Connection connection, BoundSql boundSql) {
+        if (!costGuardProperties.isEnabled()) {
+            return PASS;
+        }
+        SqlDialect dialect = SqlDialect.fromUrl(config.getUrl());
+        String prefix = dialect.explainPrefix();
+        if (prefix == null) {
+            return PASS;
+        }
+        
+        Estimate estimate;
+        try {
+            estimate = explain(connection, dialect, prefix, boundSql);
+        } catch (SQLException | IOException e) {
+            log.debug("EXPLAIN失败，跳过代价检查: {}", e.getMessage());
+            return PASS;
+        }
+        
+        String reason = evaluate(estimate);
+        if (reason == null) {
+            return PASS;
+        }
+        if (ACTION_LIMIT.equals(costGuardProperties.getAction().toLowerCase(Locale.ROOT))) {
+            log.info("查询代价超出阈值，限制为最多返回 {} 行: {}", costGuardProperties.getLimitRows(), reason);
+            return new Decision(costGuardProperties.getLimitRows(),
+                reason + "，已限制为最多返回 " + costGuardProperties.getLimitRows() + " 行");
+        }
+        log.info("查询代价超出阈值，拒绝执行: {}", reason);
+        throw new IllegalArgumentException("查询代价过高，已拒绝执行: " + reason
+            + "；请增加过滤条件或使用索引列，或改用聚合查询工具；需要读取整张表时请通过tableName(而非自定义SQL)配合pageSize按主键分页读取");
+    }
+    
+    /**
+     * 估算查询返回的行数，用于导出任务计算进度和剩余时间，不受代价检查开关影响
+     *
+     * @param config 数据库配置信息
+     * @param connection 执行EXPLAIN所用的连接
+     * @param boundSql 要估算的查询
+     * @return 估算行数，不支持EXPLAIN、EXPLAIN失败或执行计划中没有估算值时返回null
+     */
+    public Long estimateResultRows(DatabaseConfig config, Connection connection, BoundSql boundSql) {
+        SqlDialect dialect = SqlDialect.fromUrl(config.getUrl());
+        String prefix = dialect.explainPrefix();
+        if (prefix == null) {
+            return null;
+        }
+        try {
+            return explain(connection, dialect, prefix, boundSql).resultRows;
+        } catch (SQLException | IOException e) {
+            log.debug("EXPLAIN失败，无法估算结果行数: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * 与阈值比较，返回超出的原因，未超出时返回null
+     */
+    private String evaluate(Estimate estimate) {
+        List<String> reasons = new ArrayList<>();
+        if (costGuardProperties.getMaxCost() > 0 && estimate.cost != null
+                && estimate.cost > costGuardProperties.getMaxCost()) {
+            reasons.add(String.format("估算代价 %.0f 超过上限 %.0f", estimate.cost, costGuardProperties.getMaxCost()));
+        }
+        if (costGuardProperties.getMaxEstimatedRows() > 0 && estimate.rows != null
+                && estimate.rows > costGuardProperties.getMaxEstimatedRows()) {
+            reasons.add("估算扫描 " + estimate.rows + " 行，超过上限 " + costGuardProperties.getMaxEstimatedRows() + " 行");
+        }
+        if (costGuardProperties.getMaxFullScanRows() > 0) {
+            estimate.fullScans.forEach((table, rows) -> {
+                if (rows != null && rows > costGuardProperties.getMaxFullScanRows()) {
+                    reasons.add("对表 " + table + " 全表扫描(约 " + rows + " 行)，超过允许全表扫描的上限 "
+                        + costGuardProperties.getMaxFullScanRows() + " 行");
+                }
+            });
+        }
+        return reasons.isEmpty() ? null : String.join("；", reasons);
+    }
+    
+    private Estimate explain(Connection connection, SqlDialect dialect, String prefix, BoundSql boundSql)
+            throws SQLException, IOException {
+        try (PreparedStatement stmt = connection.prepareStatement(prefix + boundSql.getSql())) {
+            if (costGuardProperties.getExplainTimeoutSeconds() > 0) {
+                stmt.setQueryTimeout(costGuardProperties.getExplainTimeoutSeconds());
+            }
+            boundSql.bind(stmt, 0);
+            try (ResultSet rs = stmt.executeQuery()) {
+                switch (dialect) {
+                    case MYSQL:
+                        return readMysqlPlan(rs);
+                    case POSTGRESQL:
+                        return readPostgresPlan(connection, rs);
+                    default:
+                        return readH2Plan(connection, rs);
+                }
+            }
+        }
+    }
+    
+    /**
+     * 读取MySQL执行计划
+     * 同一个SELECT内的表按嵌套循环计算：每张表扫描的行数为前面各表输出行数之积乘以本表的rows，
+     * 不同SELECT的扫描行数相加；type为ALL或index的表为全表扫描
+     */
+    private Estimate readMysqlPlan(ResultSet rs) throws SQLException {
+        Estimate estimate = new Estimate();
+        Map<String, double[]> selects = new LinkedHashMap<>();
+        while (rs.next()) {
+            long rows = rs.getLong("rows");
+            if (rs.wasNull()) {
+                continue;
+            }
+            double filtered = rs.getDouble("filtered");
+            if (rs.wasNull()) {
+                filtered = 100;
+            }
+            // [前面各表的输出行数之积, 累计扫描行数]
+            double[] select = selects.computeIfAbsent(String.valueOf(rs.getString("id")), key -> new double[] {1, 0});
+            select[1] += select[0] * rows;
+            select[0] *= rows * filtered / 100;
+            
+            String type = rs.getString("type");
+            if ("ALL".equals(type) || "index".equals(type)) {
+                estimate.fullScans.merge(rs.getString("table"), rows, Math::max);
+            }
+        }
+        double total = 0;
+        for (double[] select : selects.values()) {
+            total += select[1];
+        }
+        estimate.rows = toLong(total);
+        // 第一个SELECT为最外层查询，其输出行数即结果行数
+        if (!selects.isEmpty()) {
+            estimate.resultRows = toLong(selects.values().iterator().next()[0]);
+        }
+        return estimate;
+    }
+    
+    /**
+     * 读取PostgreSQL的JSON执行计划
+     * 扫描行数取各节点估算行数的最大值(交叉连接时为两侧行数之积)，
+     * Seq Scan节点的表大小从pg_class读取，节点上的估算行数是过滤后的结果
+     */
+    private Estimate readPostgresPlan(Connection connection, ResultSet rs) throws SQLException, IOException {
+        Estimate estimate = new Estimate();
+        if (!rs.next()) {
+            return estimate;
+        }
+        JsonNode plan = objectMapper.readTree(rs.getString(1)).path(0).path("Plan");
+        if (plan.has("Total Cost")) {
+            estimate.cost = plan.get("Total Cost").asDouble();
+        }
+        if (plan.has("Plan Rows")) {
+            estimate.resultRows = plan.get("Plan Rows").asLong();
+        }
+        List<String> seqScans = new ArrayList<>();
+        double maxRows = walkPostgresPlan(plan, seqScans);
+        
+        for (String table : seqScans) {
+            Long rows = queryTableRows(connection,
+                "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = to_regclass(?)", table);
+            estimate.fullScans.put(table, rows);
+            if (rows != null) {
+                maxRows = Math.max(maxRows, rows);
+            }
+        }
+        estimate.rows = toLong(maxRows);
+        return estimate;
+    }
+    
+    private double walkPostgresPlan(JsonNode node, List<String> seqScans) {
+        double maxRows = node.path("Plan Rows").asDouble(0);
+        if ("Seq Scan".equals(node.path("Node Type").asText()) && node.has("Relation Name")) {
+            seqScans.add(node.get("Relation Name").asText());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            maxRows = Math.max(maxRows, walkPostgresPlan(child, seqScans));
+        }
+        return maxRows;
+    }
+    
+    /**
+     * 读取H2执行计划
+     * H2的EXPLAIN不输出估算行数，只能从计划中找出全表扫描的表并读取其估算行数，
+     * 多张表全表扫描时按嵌套循环取乘积
+     */
+    private Estimate readH2Plan(Connection connection, ResultSet rs) throws SQLException {
+        Estimate estimate = new Estimate();
+        if (!rs.next()) {
+            return estimate;
+        }
+        Matcher matcher = H2_TABLE_SCAN.matcher(rs.getString(1));
+        double product = 1;
+        boolean scanned = false;
+        while (matcher.find()) {
+            String schema = matcher.group(1);
+            String table = matcher.group(2);
+            Long rows = queryTableRows(connection,
+                "SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ?",
+                schema, table);
+            estimate.fullScans.put(schema + "." + table, rows);
+            if (rows != null) {
+                product *= Math.max(rows, 1);
+                scanned = true;
+            }
+        }
+        estimate.rows = scanned ? toLong(product) : null;
+        // H2不输出过滤后的行数，以扫描行数作为结果行数的上限
+        estimate.resultRows = estimate.rows;
+        return estimate;
+    }
+    
+    private Long queryTableRows(Connection connection, String sql, String... params) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setString(i + 1, params[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    long rows = rs.getLong(1);
+                    // 从未ANALYZE过的PostgreSQL表reltuples为-1
+                    return rs.wasNull() || rows < 0 ? null : rows;
+                }
+                return null;
+            }
+        }
+    }
+    
+    private static Long toLong(double value) {
+        return value >= Long.MAX_VALUE ? Long.MAX_VALUE : Math.round(value);
+    }
+    
+    /**
+     * 代价检查结果
+     */
+    public static final class Decision {
+        /**
+         * 最多返回的行数，0表示不限制
+         */
+        private final int maxRows;
+        
+        /**
+         * 限制行数的原因，未超出阈值时为null
+         */
+        private final String note;
+        
+        private Decision(int maxRows, String note) {
+            this.maxRows = maxRows;
+            this.note = note;
+        }
+        
+        public int getMaxRows() {
+            return maxRows;
+        }
+        
+        public String getNote() {
+            return note;
+        }
+    }
+    
+    /**
+     * 从执行计划读取的估算值
+     */
+    private static class Estimate {
+        private Long rows;
+        private Double cost;
+        // 最外层查询返回的行数
+        private Long resultRows;
+        // 全表扫描的表 -> 估算行数
+        private final Map<String, Long> fullScans = new LinkedHashMap<>();
+    }
+}
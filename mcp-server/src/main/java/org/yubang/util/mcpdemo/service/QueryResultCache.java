@@ -0,0 +1,279 @@
+package org.yubang.util.mcpdemo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.yubang.util.mcpdemo.config.DatabaseProperties;
+import org.yubang.util.mcpdemo.model.CacheStats;
+import org.yubang.util.mcpdemo.model.EncodedResult;
+import org.yubang.util.mcpdemo.model.QueryResult;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.ToLongFunction;
+
+/**
+ * 查询结果缓存
+ * 以数据源指纹+规范化SQL为键缓存查询结果(列式结果或直接编码的JSON)，按估算字节数限制容量并按LRU淘汰，
+ * 并发的相同查询只会访问一次数据库
+ */
+@Service
+public class QueryResultCache {
+    private static final Logger log = LoggerFactory.getLogger(QueryResultCache.class);
+    
+    private final DatabaseProperties.Cache cacheProperties;
+    
+    // 按访问顺序排列的缓存条目，所有访问都在lock内进行
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    
+    private final Object lock = new Object();
+    
+    // 正在加载的查询，用于合并并发的相同查询
+    private final Map<String, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+    
+    private long totalBytes;
+    
+    // 每次失效时递增，加载期间发生失效的结果不再写入缓存
+    private long generation;
+    
+    private long hits;
+    private long misses;
+    private long coalescedLoads;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+    
+    public QueryResultCache(DatabaseProperties properties) {
+        this.cacheProperties = properties.getCache();
+    }
+    
+    /**
+     * 从缓存获取查询结果，未命中时调用loader加载并写入缓存
+     *
+     * @param datasource 数据源指纹
+     * @param key 缓存键
+     * @param ttlMs 过期时间(毫秒)
+     * @param loader 结果加载器
+     * @return 查询结果
+     * @throws Exception 加载失败
+     */
+    public QueryResult get(String datasource, String key, long ttlMs, Callable<QueryResult> loader) throws Exception {
+        return load(datasource, key, ttlMs, loader, QueryResult::estimatedBytes);
+    }
+    
+    /**
+     * 从缓存获取已编码为JSON的查询结果，未命中时调用loader加载并写入缓存
+     * 与列式结果分开存放，命中时原样返回编码好的JSON
+     *
+     * @param datasource 数据源指纹
+     * @param key 缓存键
+     * @param ttlMs 过期时间(毫秒)
+     * @param loader 结果加载器
+     * @return 已编码的查询结果
+     * @throws Exception 加载失败
+     */
+    public EncodedResult getEncoded(String datasource, String key, long ttlMs,
+                                    Callable<EncodedResult> loader) throws Exception {
+        return load(datasource, "encoded\n" + key, ttlMs, loader, EncodedResult::estimatedBytes);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T> T load(String datasource, String key, long ttlMs, Callable<T> loader,
+                       ToLongFunction<T> sizer) throws Exception {
+        long startGeneration;
+        synchronized (lock) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > System.currentTimeMillis()) {
+                    hits++;
+                    return (T) entry.value;
+                }
+                removeEntry(key, entry);
+                expirations++;
+            }
+            misses++;
+            startGeneration = generation;
+        }
+        
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            // 相同查询正在加载，等待其结果
+            synchronized (lock) {
+                coalescedLoads++;
+            }
+            return (T) await(existing);
+        }
+        
+        try {
+            T value = loader.call();
+            put(datasource, key, value, sizer.applyAsLong(value), ttlMs, startGeneration);
+            future.complete(value);
+            return value;
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+    
+    /**
+     * 使全部缓存失效
+     *
+     * @return 失效的条目数
+     */
+    public int invalidateAll() {
+        synchronized (lock) {
+            int count = entries.size();
+            entries.clear();
+            totalBytes = 0;
+            generation++;
+            invalidations += count;
+            log.info("查询结果缓存已全部失效，共 {} 条", count);
+            return count;
+        }
+    }
+    
+    /**
+     * 使指定数据源的缓存失效
+     *
+     * @param datasource 数据源指纹
+     * @return 失效的条目数
+     */
+    public int invalidate(String datasource) {
+        synchronized (lock) {
+            int count = 0;
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next().getValue();
+                if (entry.datasource.equals(datasource)) {
+                    iterator.remove();
+                    totalBytes -= entry.bytes;
+                    count++;
+                }
+            }
+            generation++;
+            invalidations += count;
+            log.info("数据源 {} 的查询结果缓存已失效，共 {} 条", datasource, count);
+            return count;
+        }
+    }
+    
+    /**
+     * 获取缓存统计信息
+     */
+    public CacheStats getStats() {
+        synchronized (lock) {
+            CacheStats stats = new CacheStats();
+            stats.setHits(hits);
+            stats.setMisses(misses);
+            stats.setHitRate(hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+            stats.setCoalescedLoads(coalescedLoads);
+            stats.setEvictions(evictions);
+            stats.setExpirations(expirations);
+            stats.setInvalidations(invalidations);
+            stats.setEntries(entries.size());
+            stats.setBytes(totalBytes);
+            stats.setMaxBytes(cacheProperties.getMaxBytes());
+            return stats;
+        }
+    }
+    
+    /**
+     * 规范化SQL，合并引号以外的连续空白字符，使仅格式不同的相同查询命中同一条缓存
+     *
+     * @param sql 原始SQL
+     * @return 规范化后的SQL
+     */
+    public static String normalizeSql(String sql) {
+        StringBuilder normalized = new StringBuilder(sql.length());
+        char quote = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote == 0 && Character.isWhitespace(c)) {
+                pendingSpace = normalized.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                normalized.append(' ');
+                pendingSpace = false;
+            }
+            if (quote == 0 && (c == '\'' || c == '"' || c == '`')) {
+                quote = c;
+            } else if (c == quote) {
+                quote = 0;
+            }
+            normalized.append(c);
+        }
+        return normalized.toString();
+    }
+    
+    private void put(String datasource, String key, Object value, long bytes, long ttlMs, long startGeneration) {
+        if (bytes > cacheProperties.getMaxEntryBytes() || bytes > cacheProperties.getMaxBytes()) {
+            log.debug("查询结果过大({} 字节)，不写入缓存", bytes);
+            return;
+        }
+        
+        synchronized (lock) {
+            if (generation != startGeneration) {
+                return;
+            }
+            Entry previous = entries.remove(key);
+            if (previous != null) {
+                totalBytes -= previous.bytes;
+            }
+            
+            // 淘汰最久未访问的条目，直到容量足够
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while (totalBytes + bytes > cacheProperties.getMaxBytes() && iterator.hasNext()) {
+                Entry eldest = iterator.next().getValue();
+                iterator.remove();
+                totalBytes -= eldest.bytes;
+                evictions++;
+            }
+            
+            entries.put(key, new Entry(datasource, value, bytes, System.currentTimeMillis() + ttlMs));
+            totalBytes += bytes;
+        }
+    }
+    
+    private void removeEntry(String key, Entry entry) {
+        entries.remove(key);
+        totalBytes -= entry.bytes;
+    }
+    
+    private Object await(CompletableFuture<Object> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * 缓存条目
+     */
+    private static class Entry {
+        private final String datasource;
+        private final Object value;
+        private final long bytes;
+        private final long expiresAt;
+        
+        Entry(String datasource, Object value, long bytes, long expiresAt) {
+            this.datasource = datasource;
+            this.value = value;
+            this.bytes = bytes;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package org.yubang.util.mcpdemo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.stereotype.Service;
+import org.yubang.util.mcpdemo.config.DatabaseProperties;
+import org.yubang.util.mcpdemo.model.ColumnSchema;
+import org.yubang.util.mcpdemo.model.DatabaseConfig;
+import org.yubang.util.mcpdemo.model.DatabaseSchema;
+import org.yubang.util.mcpdemo.model.TableSchema;
+import org.yubang.util.mcpdemo.util.SqlDialect;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 数据库结构服务
+ * 通过DatabaseMetaData和information_schema读取表、列、主键及估算行数，按数据源缓存；
+ * 缓存超过刷新时间后仍直接返回，同时在后台重新加载
+ */
+@Service
+public class SchemaService {
+    private static final Logger log = LoggerFactory.getLogger(SchemaService.class);
+    
+    private final DataSourceRegistry dataSourceRegistry;
+    
+    private final DataSourceCatalog dataSourceCatalog;
+    
+    private final JdbcExecutor jdbcExecutor;
+    
+    private final DatabaseProperties.Schema schemaProperties;
+    
+    // 数据源指纹 -> 缓存的结构信息
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    
+    // 正在加载的数据源，用于合并并发的加载请求
+    private final Map<String, CompletableFuture<DatabaseSchema>> loading = new ConcurrentHashMap<>();
+    
+    // 后台刷新任务执行器
+    private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    
+    public SchemaService(DataSourceRegistry dataSourceRegistry, DataSourceCatalog dataSourceCatalog,
+                         JdbcExecutor jdbcExecutor, DatabaseProperties properties) {
+        this.dataSourceRegistry = dataSourceRegistry;
+        this.dataSourceCatalog = dataSourceCatalog;
+        this.jdbcExecutor = jdbcExecutor;
+        this.schemaProperties = properties.getSchema();
+    }
+    
+    @PreDestroy
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+    
+    /**
+     * 查询数据库结构
+     *
+     * @param config 数据库配置信息，指定tableName时只返回该表
+     * @return 数据库结构信息
+     * @throws Exception 如果读取元数据过程中发生错误
+     */
+    @Tool(name = "数据库结构查询", description = "查询数据库中的表和视图，返回列名、类型、主键和估算行数，结果有缓存；"
+            + "在查询数据前先用它了解表结构，不要为了查看列名而执行SELECT *；指定tableName时只返回该表的结构")
+    public DatabaseSchema describeSchema(DatabaseConfig config) throws Exception {
+        DatabaseSchema schema = getSchema(config);
+        String tableName = config.getTableName();
+        if (tableName == null || tableName.trim().isEmpty()) {
+            return schema;
+        }
+        
+        String name = tableName.substring(tableName.lastIndexOf('.') + 1);
+        List<TableSchema> matched = new ArrayList<>();
+        for (TableSchema table : schema.getTables()) {
+            if (table.getName().equalsIgnoreCase(name)) {
+                matched.add(table);
+            }
+        }
+        if (matched.isEmpty()) {
+            throw new IllegalArgumentException("表不存在: " + tableName);
+        }
+        
+        // 缓存中的对象是共享的，返回副本
+        DatabaseSchema result = new DatabaseSchema();
+        result.setFingerprint(schema.getFingerprint());
+        result.setCatalog(schema.getCatalog());
+        result.setSchema(schema.getSchema());
+        result.setLoadedAt(schema.getLoadedAt());
+        result.setTables(matched);
+        return result;
+    }
+    
+    /**
+     * 获取数据源的结构信息
+     * 未缓存或已过期时同步加载，超过刷新时间但未过期时返回缓存并在后台刷新
+     *
+     * @param config 数据库配置信息
+     * @return 数据库结构信息
+     * @throws Exception 如果读取元数据过程中发生错误
+     */
+    public DatabaseSchema getSchema(DatabaseConfig config) throws Exception {
+        dataSourceCatalog.resolve(config);
+        String fingerprint = dataSourceRegistry.fingerprint(config);
+        Entry entry = entries.get(fingerprint);
+        long now = System.currentTimeMillis();
+        if (entry != null) {
+            long age = now - entry.schema.getLoadedAt();
+            if (age < schemaProperties.getTtlSeconds() * 1000) {
+                entry.lastAccessAt = now;
+                if (age >= schemaProperties.getRefreshAfterSeconds() * 1000) {
+                    refreshAsync(fingerprint, config);
+                }
+                return entry.schema;
+            }
+        }
+        return await(load(fingerprint, config));
+    }
+    
+    /**
+     * 使指定数据源的结构缓存失效
+     *
+     * @param fingerprint 数据源指纹
+     * @return 是否存在该数据源的缓存
+     */
+    public boolean invalidate(String fingerprint) {
+        return entries.remove(fingerprint) != null;
+    }
+    
+    /**
+     * 使所有结构缓存失效
+     *
+     * @return 失效的数据源数
+     */
+    public int invalidateAll() {
+        int count = entries.size();
+        entries.clear();
+        return count;
+    }
+    
+    /**
+     * 获取已缓存的数据源及其加载时间
+     *
+     * @return 数据源指纹 -> 加载时间戳
+     */
+    public Map<String, Long> getCached() {
+        Map<String, Long> cached = new HashMap<>();
+        entries.forEach((fingerprint, entry) -> cached.put(fingerprint, entry.schema.getLoadedAt()));
+        return cached;
+    }
+    
+    /**
+     * 加载数据源的结构信息并写入缓存，同一数据源同时只加载一次
+     */
+    private CompletableFuture<DatabaseSchema> load(String fingerprint, DatabaseConfig config) {
+        CompletableFuture<DatabaseSchema> future = new CompletableFuture<>();
+        CompletableFuture<DatabaseSchema> existing = loading.putIfAbsent(fingerprint, future);
+        if (existing != null) {
+            return existing;
+        }
+        
+        try {
+            DatabaseSchema schema = jdbcExecutor.execute(config, () -> readSchema(fingerprint, config));
+            put(fingerprint, schema);
+            future.complete(schema);
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        } finally {
+            loading.remove(fingerprint, future);
+        }
+        return future;
+    }
+    
+    private void refreshAsync(String fingerprint, DatabaseConfig config) {
+        if (loading.containsKey(fingerprint)) {
+            return;
+        }
+        refreshExecutor.execute(() -> load(fingerprint, config).whenComplete((schema, e) -> {
+            if (e != null) {
+                log.warn("后台刷新数据源 {} 的结构信息失败: {}", fingerprint, e.getMessage());
+            }
+        }));
+    }
+    
+    private void put(String fingerprint, DatabaseSchema schema) {
+        entries.put(fingerprint, new Entry(schema));
+        
+        // 超出容量时淘汰最久未访问的数据源
+        while (entries.size() > schemaProperties.getMaxEntries()) {
+            String eldest = null;
+            long eldestAccess = Long.MAX_VALUE;
+            for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+                if (candidate.getValue().lastAccessAt < eldestAccess) {
+                    eldest = candidate.getKey();
+                    eldestAccess = candidate.getValue().lastAccessAt;
+                }
+            }
+            if (eldest == null || entries.remove(eldest) == null) {
+                break;
+            }
+        }
+    }
+    
+    /**
+     * 从数据库读取结构信息
+     * 表、列、主键各用一次查询读取整个schema，不逐表访问
+     */
+    private DatabaseSchema readSchema(String fingerprint, DatabaseConfig config) throws SQLException {
+        long start = System.currentTimeMillis();
+        try (Connection connection = dataSourceRegistry.getReadConnection(config)) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            SqlDialect dialect = SqlDialect.fromUrl(config.getUrl());
+            String catalog = connection.getCatalog();
+            // MySQL中的库对应JDBC的catalog
+            String schemaName = dialect == SqlDialect.MYSQL ? catalog : currentSchema(connection);
+            String schemaPattern = dialect == SqlDialect.MYSQL ? null : schemaName;
+            
+            Map<String, TableSchema> tables = new LinkedHashMap<>();
+            try (ResultSet rs = metaData.getTables(catalog, schemaPattern, "%", new String[] {"TABLE", "VIEW"})) {
+                while (rs.next()) {
+                    TableSchema table = new TableSchema();
+                    table.setName(rs.getString("TABLE_NAME"));
+                    table.setType(rs.getString("TABLE_TYPE"));
+                    table.setRemarks(emptyToNull(rs.getString("REMARKS")));
+                    tables.put(table.getName(), table);
+                }
+            }
+            
+            try (ResultSet rs = metaData.getColumns(catalog, schemaPattern, "%", "%")) {
+                while (rs.next()) {
+                    TableSchema table = tables.get(rs.getString("TABLE_NAME"));
+                    if (table == null) {
+                        continue;
+                    }
+                    ColumnSchema column = new ColumnSchema();
+                    column.setName(rs.getString("COLUMN_NAME"));
+                    column.setTypeName(rs.getString("TYPE_NAME"));
+                    int size = rs.getInt("COLUMN_SIZE");
+                    column.setSize(rs.wasNull() ? null : size);
+                    int decimalDigits = rs.getInt("DECIMAL_DIGITS");
+                    column.setDecimalDigits(rs.wasNull() ? null : decimalDigits);
+                    column.setNullable(rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls);
+                    column.setDefaultValue(rs.getString("COLUMN_DEF"));
+                    column.setRemarks(emptyToNull(rs.getString("REMARKS")));
+                    table.getColumns().add(column);
+                }
+            }
+            
+            readPrimaryKeys(config, connection, dialect, catalog, schemaName, schemaPattern, tables);
+            readRowEstimates(config, connection, dialect, schemaName, tables);
+            
+            DatabaseSchema schema = new DatabaseSchema();
+            schema.setFingerprint(fingerprint);
+            schema.setCatalog(catalog);
+            schema.setSchema(schemaName);
+            schema.setLoadedAt(System.currentTimeMillis());
+            schema.setTables(new ArrayList<>(tables.values()));
+            log.info("已加载数据源 {} 的结构信息，共 {} 张表，耗时 {}ms",
+                fingerprint, tables.size(), System.currentTimeMillis() - start);
+            return schema;
+        }
+    }
+    
+    /**
+     * 读取主键列，优先通过information_schema一次读取整个schema，不支持时逐表读取
+     */
+    private void readPrimaryKeys(DatabaseConfig config, Connection connection, SqlDialect dialect, String catalog,
+                                 String schemaName, String schemaPattern, Map<String, TableSchema> tables)
+            throws SQLException {
+        String sql = dialect.primaryKeySql();
+        if (sql != null && schemaName != null) {
+            try (PreparedStatement stmt = dataSourceRegistry.prepareStatement(config, connection, sql)) {
+                stmt.setString(1, schemaName);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        TableSchema table = tables.get(rs.getString(1));
+                        if (table != null) {
+                            table.getPrimaryKey().add(rs.getString(2));
+                        }
+                    }
+                }
+                return;
+            } catch (SQLException e) {
+                log.debug("通过information_schema读取主键失败，改为逐表读取: {}", e.getMessage());
+                tables.values().forEach(table -> table.getPrimaryKey().clear());
+            }
+        }
+        
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (TableSchema table : tables.values()) {
+            if (!"TABLE".equalsIgnoreCase(table.getType())) {
+                continue;
+            }
+            TreeMap<Short, String> keyColumns = new TreeMap<>();
+            try (ResultSet rs = metaData.getPrimaryKeys(catalog, schemaPattern, table.getName())) {
+                while (rs.next()) {
+                    keyColumns.put(rs.getShort("KEY_SEQ"), rs.getString("COLUMN_NAME"));
+                }
+            }
+            table.getPrimaryKey().addAll(keyColumns.values());
+        }
+    }
+    
+    /**
+     * 从数据库的统计信息读取估算行数，不扫描数据；不支持或读取失败时估算行数为null
+     */
+    private void readRowEstimates(DatabaseConfig config, Connection connection, SqlDialect dialect,
+                                  String schemaName, Map<String, TableSchema> tables) {
+        String sql = dialect.rowEstimateSql();
+        if (sql == null || schemaName == null) {
+            return;
+        }
+        try (PreparedStatement stmt = dataSourceRegistry.prepareStatement(config, connection, sql)) {
+            stmt.setString(1, schemaName);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    TableSchema table = tables.get(rs.getString(1));
+                    long rows = rs.getLong(2);
+                    if (table != null && !rs.wasNull()) {
+                        table.setEstimatedRows(rows);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            log.debug("读取估算行数失败: {}", e.getMessage());
+        }
+    }
+    
+    private String currentSchema(Connection connection) {
+        try {
+            return connection.getSchema();
+        } catch (SQLException | AbstractMethodError e) {
+            // 旧版驱动不支持getSchema
+            return null;
+        }
+    }
+    
+    private String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+    
+    private DatabaseSchema await(CompletableFuture<DatabaseSchema> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * 缓存条目
+     */
+    private static class Entry {
+        private final DatabaseSchema schema;
+        private volatile long lastAccessAt;
+        
+        private Entry(DatabaseSchema schema) {
+            this.schema = schema;
+            this.lastAccessAt = System.currentTimeMillis();
+        }
+    }
+}
@@ -8,11 +8,14 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import com.google.gson.Gson;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 
@@ -33,6 +36,9 @@ public class SseEmitterService {
     // 使用ConcurrentHashMap存储SSE发射器
     private final Map<String, SseEmitter> emitters = new ConcurrentHashMap<>();
     
+    // 连接断开监听器，参数为客户端ID
+    private final List<Consumer<String>> disconnectListeners = new CopyOnWriteArrayList<>();
+    
     // JSON序列化工具
     private final Gson gson;
     
@@ -81,30 +87,35 @@ public class SseEmitterService {
      * @return 创建的SSE发射器
      */
     public SseEmitter createEmitter(String clientId) {
-        // 如果已存在，先移除旧的连接
-        removeEmitter(clientId);
-        
         SseEmitter emitter = new SseEmitter(DEFAULT_TIMEOUT);
         
         // 添加完成回调
         emitter.onCompletion(() -> {
             log.info("客户端 {} 的SSE连接已完成", clientId);
-            removeEmitter(clientId);
+            removeEmitter(clientId, emitter);
         });
         
         // 添加超时回调
         emitter.onTimeout(() -> {
             log.info("客户端 {} 的SSE连接已超时", clientId);
-            removeEmitter(clientId);
+            removeEmitter(clientId, emitter);
         });
         
         // 添加错误回调
         emitter.onError((ex) -> {
             log.warn("客户端 {} 的SSE连接发生错误: {}", clientId, ex.getMessage());
-            removeEmitter(clientId);
+            removeEmitter(clientId, emitter);
         });
         
-        emitters.put(clientId, emitter);
+        SseEmitter previous = emitters.put(clientId, emitter);
+        if (previous != null) {
+            // 客户端重连时替换旧连接，不通知断开监听器，该客户端正在执行的查询和导出任务继续进行
+            try {
+                previous.complete();
+            } catch (Exception e) {
+                log.warn("关闭客户端 {} 的旧SSE连接时发生错误", clientId, e);
+            }
+        }
         log.info("已为客户端 {} 创建SSE连接，当前活跃连接数: {}", clientId, emitters.size());
         
         return emitter;
@@ -116,17 +127,50 @@ public class SseEmitterService {
      * @param clientId 客户端ID
      */
     public void removeEmitter(String clientId) {
-        SseEmitter emitter = emitters.remove(clientId);
+        SseEmitter emitter = emitters.get(clientId);
         if (emitter != null) {
+            removeEmitter(clientId, emitter);
+        }
+    }
+    
+    /**
+     * 移除指定的SSE发射器
+     * 只有该发射器仍是客户端当前的连接时才移除并通知监听器，
+     * 已被重连替换的旧连接触发的完成、超时和错误回调不影响新连接
+     * 
+     * @param clientId 客户端ID
+     * @param emitter 要移除的发射器
+     */
+    private void removeEmitter(String clientId, SseEmitter emitter) {
+        if (emitters.remove(clientId, emitter)) {
             try {
                 emitter.complete();
                 log.info("已移除客户端 {} 的SSE连接，当前活跃连接数: {}", clientId, emitters.size());
             } catch (Exception e) {
                 log.warn("移除客户端 {} 的SSE连接时发生错误", clientId, e);
             }
+            
+            // 通知监听器，使该客户端正在进行的工作尽快结束
+            for (Consumer<String> listener : disconnectListeners) {
+                try {
+                    listener.accept(clientId);
+                } catch (Exception e) {
+                    log.warn("处理客户端 {} 的断开事件时发生错误", clientId, e);
+                }
+            }
         }
     }
     
+    /**
+     * 添加连接断开监听器
+     * 客户端的SSE连接完成、超时或出错时调用，重连替换旧连接时不调用
+     * 
+     * @param listener 监听器，参数为客户端ID
+     */
+    public void addDisconnectListener(Consumer<String> listener) {
+        disconnectListeners.add(listener);
+    }
+    
     /**
      * 判断是否存在指定客户端的发射器
      * 
@@ -154,12 +198,8 @@ public class SseEmitterService {
         }
         
         // 创建SSE事件对象
-        // 使用不转义HTML的Gson实例，避免中文被转义为Unicode
-        Gson noEscapingGson = new com.google.gson.GsonBuilder()
-            .disableHtmlEscaping()
-            .create();
-            
-        String jsonData = noEscapingGson.toJson(data);
+        // 复用不转义HTML的Gson实例，避免中文被转义为Unicode
+        String jsonData = gson.toJson(data);
         SseEmitter.SseEventBuilder event = SseEmitter.event()
             .id(String.valueOf(System.currentTimeMillis()))
             .name(eventName)
@@ -171,7 +211,7 @@ public class SseEmitterService {
             log.debug("已向客户端 {} 发送事件: {}, 数据: {}", clientId, eventName, jsonData);
         } catch (Exception e) {
             log.error("向客户端 {} 发送事件 {} 失败: {}", clientId, eventName, e.getMessage());
-            removeEmitter(clientId);
+            removeEmitter(clientId, emitter);
             throw e;
         }
     }
@@ -216,11 +256,9 @@ public class SseEmitterService {
             }
         });
         
-        // 移除失败的客户端
-        failedClients.forEach((clientId, exception) -> {
-            log.warn("向客户端 {} 广播事件失败: {}", clientId, exception.getMessage());
-            removeEmitter(clientId);
-        });
+        // 发送失败的连接已在sendEvent中移除，这里不再按客户端ID移除，避免误删期间重连的新连接
+        failedClients.forEach((clientId, exception) ->
+            log.warn("向客户端 {} 广播事件失败: {}", clientId, exception.getMessage()));
     }
     
     /**
@@ -251,11 +289,9 @@ public class SseEmitterService {
             }
         });
         
-        // 移除失败的客户端
-        failedClients.forEach((clientId, exception) -> {
-            log.warn("向客户端 {} 发送心跳失败: {}", clientId, exception.getMessage());
-            removeEmitter(clientId);
-        });
+        // 发送失败的连接已在sendEvent中移除
+        failedClients.forEach((clientId, exception) ->
+            log.warn("向客户端 {} 发送心跳失败: {}", clientId, exception.getMessage()));
         
         if (!failedClients.isEmpty()) {
             log.info("心跳检测: {} 个客户端连接已断开，当前活跃连接数: {}", 
@@ -0,0 +1,202 @@
+package org.yubang.util.mcpdemo.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.yubang.util.mcpdemo.config.FileStoreProperties;
+import org.yubang.util.mcpdemo.util.SpillStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 临时文件存储
+ * 保存查询过程中溢出到磁盘的大对象、导出的Excel文件等临时文件，文件以随机句柄命名，超过保存时间后定时清理；
+ * 清理只处理文件名符合句柄格式的文件，目录中的其他文件不受影响
+ */
+@Service
+public class TempFileStore implements SpillStore {
+    private static final Logger log = LoggerFactory.getLogger(TempFileStore.class);
+    
+    // 句柄为32位十六进制随机数加扩展名，只有符合格式的句柄才会被解析为文件路径
+    private static final Pattern HANDLE = Pattern.compile("[0-9a-f]{32}(\\.[a-z0-9]{1,8})?");
+    
+    private final FileStoreProperties properties;
+    
+    private Path directory;
+    
+    // 最近一次清理时统计的文件总大小，加上之后登记的新文件大小
+    private final AtomicLong usedBytes = new AtomicLong();
+    
+    // 已分配但尚未获取句柄(仍在写入)的文件 -> 分配时间，清理时不统计也不删除，由handleOf计入已使用空间
+    private final Map<Path, Long> pending = new ConcurrentHashMap<>();
+    
+    private ScheduledExecutorService cleanupExecutor;
+    
+    public TempFileStore(FileStoreProperties properties) {
+        this.properties = properties;
+    }
+    
+    @PostConstruct
+    public void init() throws IOException {
+        directory = properties.getDirectory() == null || properties.getDirectory().isEmpty()
+            ? Paths.get(System.getProperty("java.io.tmpdir"), "mcp-files")
+            : Paths.get(properties.getDirectory());
+        Files.createDirectories(directory);
+        cleanup();
+        
+        cleanupExecutor = Executors.newSingleThreadScheduledExecutor();
+        cleanupExecutor.scheduleWithFixedDelay(this::cleanup, properties.getCleanupIntervalMs(),
+            properties.getCleanupIntervalMs(), TimeUnit.MILLISECONDS);
+        log.info("临时文件存储初始化完成，目录: {}", directory);
+    }
+    
+    @PreDestroy
+    public void destroy() {
+        if (cleanupExecutor != null) {
+            cleanupExecutor.shutdownNow();
+        }
+    }
+    
+    @Override
+    public Path allocate(String extension) throws IOException {
+        long used = usedBytes.get();
+        if (used >= properties.getMaxTotalBytes()) {
+            throw new IOException("临时文件存储空间已满，已使用 " + used + " 字节");
+        }
+        Path file = directory.resolve(UUID.randomUUID().toString().replace("-", "") + extension);
+        pending.put(file, System.currentTimeMillis());
+        return file;
+    }
+    
+    @Override
+    public String handleOf(Path file) {
+        pending.remove(file);
+        try {
+            // 写入完成后计入已使用空间，两次清理之间的新文件同样受总大小限制
+            usedBytes.addAndGet(Files.size(file));
+        } catch (IOException e) {
+            log.debug("读取临时文件 {} 大小失败: {}", file, e.getMessage());
+        }
+        return file.getFileName().toString();
+    }
+    
+    @Override
+    public long remainingBytes() {
+        return Math.max(0, properties.getMaxTotalBytes() - usedBytes.get());
+    }
+    
+    /**
+     * 临时文件的保存时间(秒)
+     */
+    public long getTtlSeconds() {
+        return properties.getTtlSeconds();
+    }
+    
+    /**
+     * 根据句柄获取临时文件
+     *
+     * @param handle 文件句柄
+     * @return 文件路径，句柄非法、文件不存在或已过期时返回null
+     */
+    public Path resolve(String handle) {
+        if (handle == null || !HANDLE.matcher(handle).matches()) {
+            return null;
+        }
+        Path file = directory.resolve(handle);
+        try {
+            if (!Files.isRegularFile(file) || isExpired(file, System.currentTimeMillis())) {
+                return null;
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return file;
+    }
+    
+    /**
+     * 删除指定的临时文件
+     *
+     * @param handle 文件句柄
+     * @return 是否存在并已删除
+     */
+    public boolean delete(String handle) {
+        Path file = resolve(handle);
+        if (file == null) {
+            return false;
+        }
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除临时文件 {} 失败: {}", handle, e.getMessage());
+            return false;
+        }
+    }
+    
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+    
+    /**
+     * 删除过期的临时文件，并重新统计已使用的空间
+     * 正在写入的文件由handleOf计入，这里跳过；写入失败后已被删除的分配记录在一个清理周期后移除
+     */
+    private void cleanup() {
+        long now = System.currentTimeMillis();
+        pending.entrySet().removeIf(entry -> !Files.exists(entry.getKey())
+            && now - entry.getValue() > properties.getCleanupIntervalMs());
+        
+        long total = 0;
+        int deleted = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!HANDLE.matcher(file.getFileName().toString()).matches()) {
+                    continue;
+                }
+                try {
+                    if (pending.containsKey(file)) {
+                        // 长时间未修改的未完成文件视为写入中断后遗留的文件，按过期文件删除
+                        if (isExpired(file, now)) {
+                            pending.remove(file);
+                            Files.deleteIfExists(file);
+                            deleted++;
+                        }
+                        continue;
+                    }
+                    if (isExpired(file, now)) {
+                        Files.deleteIfExists(file);
+                        deleted++;
+                    } else {
+                        total += Files.size(file);
+                    }
+                } catch (IOException e) {
+                    log.debug("清理临时文件 {} 失败: {}", file, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("清理临时文件目录失败: {}", e.getMessage());
+            return;
+        }
+        usedBytes.set(total);
+        if (deleted > 0) {
+            log.info("已清理 {} 个过期临时文件，当前占用 {} 字节", deleted, total);
+        }
+    }
+    
+    private boolean isExpired(Path file, long now) throws IOException {
+        return now - Files.getLastModifiedTime(file).toMillis() > properties.getTtlSeconds() * 1000;
+    }
+}
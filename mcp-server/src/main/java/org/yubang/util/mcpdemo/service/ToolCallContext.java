@@ -0,0 +1,98 @@
+package org.yubang.util.mcpdemo.service;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 工具调用上下文
+ * 记录当前线程正在执行的工具调用所属的SSE客户端，供需要向客户端推送事件的工具使用
+ */
+public final class ToolCallContext {
+
+    private static final ThreadLocal<ToolCallContext> CURRENT = new ThreadLocal<>();
+    
+    /**
+     * 客户端ID
+     */
+    private final String clientId;
+    
+    /**
+     * 工具调用ID
+     */
+    private final String toolCallId;
+    
+    public ToolCallContext(String clientId, String toolCallId) {
+        this.clientId = clientId;
+        this.toolCallId = toolCallId;
+    }
+    
+    public String getClientId() {
+        return clientId;
+    }
+    
+    public String getToolCallId() {
+        return toolCallId;
+    }
+    
+    /**
+     * 获取当前线程的工具调用上下文
+     *
+     * @return 工具调用上下文，不是通过SSE控制器发起的调用返回null
+     */
+    public static ToolCallContext current() {
+        return CURRENT.get();
+    }
+    
+    /**
+     * 设置当前线程的工具调用上下文
+     *
+     * @param context 工具调用上下文
+     */
+    public static void set(ToolCallContext context) {
+        CURRENT.set(context);
+    }
+    
+    /**
+     * 清除当前线程的工具调用上下文
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+    
+    /**
+     * 包装任务，使其在其他线程中执行时沿用当前线程的工具调用上下文
+     *
+     * @param task 任务
+     * @return 包装后的任务
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        ToolCallContext context = current();
+        return () -> {
+            ToolCallContext previous = current();
+            CURRENT.set(context);
+            try {
+                return task.call();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+    
+    /**
+     * 包装任务，使其在其他线程中执行时沿用当前线程的工具调用上下文
+     *
+     * @param task 任务
+     * @return 包装后的任务
+     */
+    public static Runnable propagate(Runnable task) {
+        ToolCallContext context = current();
+        return () -> {
+            ToolCallContext previous = current();
+            CURRENT.set(context);
+            try {
+                task.run();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+}
@@ -7,6 +7,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.yubang.util.mcpdemo.model.EncodedResult;
+import org.yubang.util.mcpdemo.model.QueryResult;
 
 import java.lang.reflect.Method;
 import java.util.List;
@@ -134,6 +136,14 @@ public class ToolExecutionService {
             return "null";
         }
         
+        // 查询结果使用自带的列式编码器，不经过反射序列化
+        if (result instanceof QueryResult) {
+            return ((QueryResult) result).toJson();
+        }
+        if (result instanceof EncodedResult) {
+            return ((EncodedResult) result).getJson();
+        }
+        
         try {
             // 转换为JSON字符串
             return JSONUtil.toJsonStr(result);
@@ -0,0 +1,109 @@
+package org.yubang.util.mcpdemo.service;
+
+import org.springframework.stereotype.Service;
+import org.yubang.util.mcpdemo.config.DatabaseProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 增量查询水位存储
+ * 按客户端+查询键记录上一次增量查询读到的水位值，按LRU淘汰并在过期后失效；
+ * 水位只保存在内存中，服务重启后首次轮询会重新读取全部数据，调用方也可通过watermark参数显式指定
+ */
+@Service
+public class WatermarkStore {
+    
+    private final DatabaseProperties.Incremental incrementalProperties;
+    
+    // 按访问顺序排列的水位，所有访问都在lock内进行
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    
+    private final Object lock = new Object();
+    
+    public WatermarkStore(DatabaseProperties properties) {
+        this.incrementalProperties = properties.getIncremental();
+    }
+    
+    /**
+     * 获取水位
+     *
+     * @param clientId 客户端ID
+     * @param queryKey 查询键
+     * @return 水位值，不存在或已过期时返回null
+     */
+    public Object get(String clientId, String queryKey) {
+        String key = clientId + "\n" + queryKey;
+        synchronized (lock) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() - entry.updatedAt > incrementalProperties.getTtlSeconds() * 1000) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+    
+    /**
+     * 记录水位
+     *
+     * @param clientId 客户端ID
+     * @param queryKey 查询键
+     * @param value 水位值
+     */
+    public void put(String clientId, String queryKey, Object value) {
+        synchronized (lock) {
+            entries.put(clientId + "\n" + queryKey, new Entry(value, System.currentTimeMillis()));
+            while (entries.size() > incrementalProperties.getMaxEntries()) {
+                entries.remove(entries.keySet().iterator().next());
+            }
+        }
+    }
+    
+    /**
+     * 清除水位，下一次增量查询从头读取
+     *
+     * @param clientId 客户端ID
+     * @param queryKey 查询键
+     */
+    public void remove(String clientId, String queryKey) {
+        synchronized (lock) {
+            entries.remove(clientId + "\n" + queryKey);
+        }
+    }
+    
+    /**
+     * 清除全部水位
+     *
+     * @return 清除的条目数
+     */
+    public int clear() {
+        synchronized (lock) {
+            int count = entries.size();
+            entries.clear();
+            return count;
+        }
+    }
+    
+    public int size() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+    
+    /**
+     * 水位条目
+     */
+    private static class Entry {
+        private final Object value;
+        private final long updatedAt;
+        
+        Entry(Object value, long updatedAt) {
+            this.value = value;
+            this.updatedAt = updatedAt;
+        }
+    }
+}
@@ -3,11 +3,9 @@ package org.yubang.util.mcpdemo.tool;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.stereotype.Component;
 import org.yubang.util.mcpdemo.model.DatabaseConfig;
+import org.yubang.util.mcpdemo.model.QueryResult;
 import org.yubang.util.mcpdemo.service.DatabaseService;
 
-import java.util.List;
-import java.util.Map;
-
 /**
  * 数据库查询工具
  * 通过配置的数据库连接信息，访问对应的数据表，返回数据
@@ -33,7 +31,7 @@ public class DatabaseQueryTool {
      *                  - password: 数据库密码
      *                  - tableName: 要查询的表名
      *                  - sql: 自定义SQL语句，可选，如不提供则使用"SELECT * FROM tableName"
-     * @return 查询结果的JSON字符串
+     * @return 查询结果的JSON字符串，格式为{"columns":[...],"types":[...],"rowCount":n,"rows":[[...]]}
      */
     public String queryDatabase(String configJson) {
         try {
@@ -41,10 +39,10 @@ public class DatabaseQueryTool {
             DatabaseConfig config = objectMapper.readValue(configJson, DatabaseConfig.class);
             
             // 执行数据库查询
-            List<Map<String, Object>> results = databaseService.queryTable(config);
+            QueryResult result = databaseService.query(config);
             
             // 转换结果为JSON
-            return objectMapper.writeValueAsString(results);
+            return result.toJson();
         } catch (Exception e) {
             return "{\"error\": \"" + e.getMessage().replace("\"", "\\\"") + "\"}";
         }
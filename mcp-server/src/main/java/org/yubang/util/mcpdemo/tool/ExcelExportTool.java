@@ -28,7 +28,8 @@ public class ExcelExportTool {
      *                  - fileName: 导出的Excel文件名，默认为"export"
      *                  - sheetName: 工作表名称，默认为"Sheet1"
      *                  - headerMapping: 列头映射，key为数据字段名，value为Excel列标题
-     *                  - returnBase64: 是否返回Base64编码的Excel内容，默认为true
+     *                  - delivery: 返回方式，file(默认，返回下载句柄)或base64
+     *                  - returnBase64: delivery为base64时是否只返回Base64编码的Excel内容，默认为true
      *                  - sql: 自定义SQL语句，直接从数据库中查询数据
      *                  - databaseConfig: 数据库配置，用于SQL查询
      * @return Base64编码的Excel内容或包含文件名和内容的JSON
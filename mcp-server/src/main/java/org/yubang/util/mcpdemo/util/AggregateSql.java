@@ -0,0 +1,198 @@
+package org.yubang.util.mcpdemo.util;
+
+import org.yubang.util.mcpdemo.model.AggregateConfig;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 聚合查询SQL生成器
+ * 函数和运算符只允许白名单中的取值，表名、列名和别名经过标识符校验，比较值全部作为绑定参数传入
+ */
+public final class AggregateSql {
+
+    private static final Set<String> FUNCTIONS = Set.of("COUNT", "SUM", "AVG", "MIN", "MAX");
+    
+    private static final Set<String> COMPARISONS = Set.of("=", "!=", "<>", ">", ">=", "<", "<=", "LIKE", "NOT LIKE");
+    
+    private AggregateSql() {
+    }
+    
+    /**
+     * 生成聚合查询SQL
+     *
+     * @param config 聚合查询配置
+     * @param tableName 表名
+     * @param dialect 数据库方言
+     * @return 绑定了参数的SQL
+     * @throws IllegalArgumentException 配置中包含不支持的函数、运算符或非法标识符
+     */
+    public static BoundSql build(AggregateConfig config, String tableName, SqlDialect dialect) {
+        List<Object> params = new ArrayList<>();
+        List<String> groupBy = new ArrayList<>();
+        if (config.getGroupBy() != null) {
+            for (String column : config.getGroupBy()) {
+                groupBy.add(SqlIdentifiers.requireValid(column));
+            }
+        }
+        
+        // 可用于排序的名称：分组列和聚合别名
+        Set<String> sortable = new HashSet<>();
+        groupBy.forEach(column -> sortable.add(column.toLowerCase(Locale.ROOT)));
+        
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (String column : groupBy) {
+            sql.append(column).append(", ");
+        }
+        
+        List<AggregateConfig.Aggregate> aggregates = config.getAggregates();
+        if (aggregates == null || aggregates.isEmpty()) {
+            sql.append("COUNT(*) AS row_count");
+            sortable.add("row_count");
+        } else {
+            for (int i = 0; i < aggregates.size(); i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                String alias = appendAggregate(sql, aggregates.get(i));
+                sortable.add(alias.toLowerCase(Locale.ROOT));
+            }
+        }
+        
+        sql.append(" FROM ").append(SqlIdentifiers.requireValid(tableName));
+        
+        if (config.getFilters() != null && !config.getFilters().isEmpty()) {
+            sql.append(" WHERE ");
+            for (int i = 0; i < config.getFilters().size(); i++) {
+                if (i > 0) {
+                    sql.append(" AND ");
+                }
+                appendFilter(sql, config.getFilters().get(i), params);
+            }
+        }
+        
+        if (!groupBy.isEmpty()) {
+            sql.append(" GROUP BY ").append(String.join(", ", groupBy));
+        }
+        
+        if (config.getOrderBy() != null && !config.getOrderBy().isEmpty()) {
+            sql.append(" ORDER BY ");
+            for (int i = 0; i < config.getOrderBy().size(); i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                appendOrder(sql, config.getOrderBy().get(i), sortable);
+            }
+        }
+        
+        if (config.getLimit() > 0) {
+            sql.append(dialect.limitClause(config.getLimit()));
+        }
+        return BoundSql.of(sql.toString(), params, null);
+    }
+    
+    /**
+     * 追加一个聚合函数
+     *
+     * @return 结果列别名
+     */
+    private static String appendAggregate(StringBuilder sql, AggregateConfig.Aggregate aggregate) {
+        String function = aggregate.getFunction() == null ? "" : aggregate.getFunction().trim().toUpperCase(Locale.ROOT);
+        if (!FUNCTIONS.contains(function)) {
+            throw new IllegalArgumentException("不支持的聚合函数: " + aggregate.getFunction());
+        }
+        
+        String column = aggregate.getColumn();
+        boolean countAll = column == null || column.trim().isEmpty() || "*".equals(column.trim());
+        if (countAll && !"COUNT".equals(function)) {
+            throw new IllegalArgumentException("聚合函数 " + function + " 需要指定列");
+        }
+        
+        String alias = aggregate.getAlias();
+        if (alias == null || alias.trim().isEmpty()) {
+            alias = countAll ? "count_all" : function.toLowerCase(Locale.ROOT) + "_" + column.replace('.', '_');
+        }
+        
+        sql.append(function).append('(');
+        if (countAll) {
+            sql.append('*');
+        } else {
+            if (aggregate.isDistinct()) {
+                sql.append("DISTINCT ");
+            }
+            sql.append(SqlIdentifiers.requireValid(column));
+        }
+        sql.append(") AS ").append(SqlIdentifiers.requireValid(alias));
+        return alias;
+    }
+    
+    /**
+     * 追加一个过滤条件，比较值加入绑定参数
+     */
+    private static void appendFilter(StringBuilder sql, AggregateConfig.Filter filter, List<Object> params) {
+        String column = SqlIdentifiers.requireValid(filter.getColumn());
+        String operator = filter.getOperator() == null
+            ? "=" : filter.getOperator().trim().replaceAll("\\s+", " ").toUpperCase(Locale.ROOT);
+        Object value = filter.getValue();
+        
+        if (COMPARISONS.contains(operator)) {
+            if (value == null || value instanceof Collection) {
+                throw new IllegalArgumentException("运算符 " + operator + " 需要单个比较值: " + column);
+            }
+            sql.append(column).append(' ').append(operator).append(" ?");
+            params.add(value);
+            return;
+        }
+        
+        switch (operator) {
+            case "IS NULL":
+            case "IS NOT NULL":
+                sql.append(column).append(' ').append(operator);
+                return;
+            case "IN":
+            case "NOT IN": {
+                if (!(value instanceof Collection) || ((Collection<?>) value).isEmpty()) {
+                    throw new IllegalArgumentException("运算符 " + operator + " 需要非空数组: " + column);
+                }
+                sql.append(column).append(' ').append(operator).append(" (");
+                int index = 0;
+                for (Object item : (Collection<?>) value) {
+                    sql.append(index++ > 0 ? ", ?" : "?");
+                    params.add(item);
+                }
+                sql.append(')');
+                return;
+            }
+            case "BETWEEN": {
+                if (!(value instanceof Collection) || ((Collection<?>) value).size() != 2) {
+                    throw new IllegalArgumentException("运算符 BETWEEN 需要两个元素的数组: " + column);
+                }
+                sql.append(column).append(" BETWEEN ? AND ?");
+                params.addAll((Collection<?>) value);
+                return;
+            }
+            default:
+                throw new IllegalArgumentException("不支持的运算符: " + filter.getOperator());
+        }
+    }
+    
+    /**
+     * 追加一个排序项，只能按分组列或聚合别名排序
+     */
+    private static void appendOrder(StringBuilder sql, String order, Set<String> sortable) {
+        String[] parts = order.trim().split("\\s+");
+        String name = SqlIdentifiers.requireValid(parts[0]);
+        if (!sortable.contains(name.toLowerCase(Locale.ROOT))) {
+            throw new IllegalArgumentException("只能按分组列或聚合别名排序: " + name);
+        }
+        String direction = parts.length > 1 ? parts[1].toUpperCase(Locale.ROOT) : "ASC";
+        if (parts.length > 2 || !("ASC".equals(direction) || "DESC".equals(direction))) {
+            throw new IllegalArgumentException("非法的排序: " + order);
+        }
+        sql.append(name).append(' ').append(direction);
+    }
+}
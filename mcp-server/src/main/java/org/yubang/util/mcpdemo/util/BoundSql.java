@@ -0,0 +1,139 @@
+package org.yubang.util.mcpdemo.util;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 绑定了参数的SQL
+ * 支持位置参数(?)和命名参数(:name)，命名参数会被转换为位置参数，
+ * 集合类型的命名参数展开为 ?, ?, ? 以便用于IN条件
+ */
+public final class BoundSql {
+
+    /**
+     * 只包含位置参数的SQL
+     */
+    private final String sql;
+    
+    /**
+     * 按位置排列的参数值
+     */
+    private final List<Object> params;
+    
+    private BoundSql(String sql, List<Object> params) {
+        this.sql = sql;
+        this.params = params;
+    }
+    
+    /**
+     * 创建绑定参数的SQL
+     *
+     * @param sql 原始SQL
+     * @param positional 位置参数
+     * @param named 命名参数
+     * @return 绑定了参数的SQL
+     * @throws IllegalArgumentException 同时使用两种参数或缺少命名参数
+     */
+    public static BoundSql of(String sql, List<Object> positional, Map<String, Object> named) {
+        boolean hasPositional = positional != null && !positional.isEmpty();
+        if (named != null && !named.isEmpty()) {
+            if (hasPositional) {
+                throw new IllegalArgumentException("params和namedParams不能同时使用");
+            }
+            return parseNamed(sql, named);
+        }
+        return new BoundSql(sql, hasPositional ? positional : Collections.emptyList());
+    }
+    
+    public String getSql() {
+        return sql;
+    }
+    
+    public List<Object> getParams() {
+        return params;
+    }
+    
+    /**
+     * 将参数绑定到PreparedStatement
+     *
+     * @param statement 预编译语句
+     * @param offset 起始位置偏移，参数从offset+1开始绑定
+     * @throws SQLException 绑定失败
+     */
+    public void bind(PreparedStatement statement, int offset) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            Object value = params.get(i);
+            if (value == null) {
+                statement.setNull(offset + i + 1, Types.NULL);
+            } else {
+                statement.setObject(offset + i + 1, value);
+            }
+        }
+    }
+    
+    /**
+     * 将命名参数替换为位置参数，忽略引号内的内容和PostgreSQL的::类型转换
+     */
+    private static BoundSql parseNamed(String sql, Map<String, Object> named) {
+        StringBuilder parsed = new StringBuilder(sql.length());
+        List<Object> params = new ArrayList<>();
+        char quote = 0;
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+                parsed.append(c);
+                i++;
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+                parsed.append(c);
+                i++;
+            } else if (c == ':' && i + 1 < sql.length() && sql.charAt(i + 1) == ':') {
+                parsed.append("::");
+                i += 2;
+            } else if (c == ':' && i + 1 < sql.length() && Character.isJavaIdentifierStart(sql.charAt(i + 1))) {
+                int end = i + 1;
+                while (end < sql.length() && Character.isJavaIdentifierPart(sql.charAt(end))) {
+                    end++;
+                }
+                String name = sql.substring(i + 1, end);
+                if (!named.containsKey(name)) {
+                    throw new IllegalArgumentException("缺少命名参数: " + name);
+                }
+                appendParam(parsed, params, named.get(name));
+                i = end;
+            } else {
+                parsed.append(c);
+                i++;
+            }
+        }
+        return new BoundSql(parsed.toString(), params);
+    }
+    
+    private static void appendParam(StringBuilder parsed, List<Object> params, Object value) {
+        if (value instanceof Collection) {
+            Collection<?> values = (Collection<?>) value;
+            if (values.isEmpty()) {
+                throw new IllegalArgumentException("集合类型的命名参数不能为空");
+            }
+            boolean first = true;
+            for (Object item : values) {
+                parsed.append(first ? "?" : ", ?");
+                params.add(item);
+                first = false;
+            }
+        } else {
+            parsed.append('?');
+            params.add(value);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.yubang.util.mcpdemo.util;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+
+/**
+ * 列宽估算器
+ * 写入时对行进行采样(前sampleRows行全部采样，之后每sampleInterval行采样一行)，
+ * 按显示宽度记录每列的最大字符数，中日韩等全角字符按2个字符计算，写入结束后一次性设置列宽；
+ * 代价与采样的单元格数成正比，不需要对每个单元格做字体排版
+ */
+public final class ColumnWidthEstimator {
+
+    // 列宽的单位为1/256个字符宽度，Excel允许的最大列宽为255个字符
+    private static final int MAX_EXCEL_WIDTH = 255;
+    
+    // 单元格内容两侧留出的字符数
+    private static final int PADDING = 2;
+    
+    // 数值按常规格式显示时最多的有效位数
+    private static final int MAX_NUMBER_WIDTH = 15;
+    
+    private final int sampleRows;
+    
+    private final int sampleInterval;
+    
+    private final int maxWidth;
+    
+    private int[] widths = new int[16];
+    
+    private int columnCount;
+    
+    /**
+     * @param sampleRows 全部采样的前若干行
+     * @param sampleInterval 之后每隔多少行采样一行，小于等于0时不再采样
+     * @param maxWidth 列宽上限(字符数)
+     */
+    public ColumnWidthEstimator(int sampleRows, int sampleInterval, int maxWidth) {
+        this.sampleRows = sampleRows;
+        this.sampleInterval = sampleInterval;
+        this.maxWidth = Math.min(maxWidth, MAX_EXCEL_WIDTH);
+    }
+    
+    /**
+     * 行写入完成后调用，被采样到的行记录各单元格的显示宽度
+     *
+     * @param row 刚写入的行
+     * @param rowIndex 数据行序号，从0开始，表头行传-1总是记录
+     */
+    public void sample(Row row, long rowIndex) {
+        if (rowIndex >= sampleRows && (sampleInterval <= 0 || (rowIndex - sampleRows) % sampleInterval != 0)) {
+            return;
+        }
+        for (Cell cell : row) {
+            record(cell.getColumnIndex(), cellWidth(cell));
+        }
+    }
+    
+    /**
+     * 按记录的最大宽度设置各列列宽
+     */
+    public void apply(Sheet sheet) {
+        for (int i = 0; i < columnCount; i++) {
+            if (widths[i] > 0) {
+                int width = Math.min(widths[i] + PADDING, maxWidth);
+                sheet.setColumnWidth(i, width * 256);
+            }
+        }
+    }
+    
+    private void record(int column, int width) {
+        if (column >= widths.length) {
+            int[] grown = new int[Math.max(widths.length * 2, column + 1)];
+            System.arraycopy(widths, 0, grown, 0, widths.length);
+            widths = grown;
+        }
+        if (width > widths[column]) {
+            widths[column] = width;
+        }
+        columnCount = Math.max(columnCount, column + 1);
+    }
+    
+    private int cellWidth(Cell cell) {
+        switch (cell.getCellType()) {
+            case STRING:
+                return displayWidth(cell.getStringCellValue());
+            case NUMERIC:
+                if (DateUtil.isCellDateFormatted(cell)) {
+                    return cell.getCellStyle().getDataFormatString().length();
+                }
+                return numberWidth(cell.getNumericCellValue());
+            case BOOLEAN:
+                return cell.getBooleanCellValue() ? 4 : 5;
+            default:
+                return 0;
+        }
+    }
+    
+    private int numberWidth(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value).length();
+        }
+        return Math.min(Double.toString(value).length(), MAX_NUMBER_WIDTH);
+    }
+    
+    /**
+     * 文本的显示宽度，多行文本取最长的一行，全角字符计为2
+     *
+     * @param text 文本
+     * @return 显示宽度(字符数)
+     */
+    public static int displayWidth(String text) {
+        int max = 0;
+        int width = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (codePoint == '\n') {
+                max = Math.max(max, width);
+                width = 0;
+            } else {
+                width += isWide(codePoint) ? 2 : 1;
+            }
+        }
+        return Math.max(max, width);
+    }
+    
+    /**
+     * 是否为全角显示的字符：中日韩文字、韩文音节、全角符号及常见表情符号
+     */
+    private static boolean isWide(int codePoint) {
+        return (codePoint >= 0x1100 && codePoint <= 0x115F)
+            || (codePoint >= 0x2E80 && codePoint <= 0xA4CF && codePoint != 0x303F)
+            || (codePoint >= 0xAC00 && codePoint <= 0xD7A3)
+            || (codePoint >= 0xF900 && codePoint <= 0xFAFF)
+            || (codePoint >= 0xFE30 && codePoint <= 0xFE4F)
+            || (codePoint >= 0xFF00 && codePoint <= 0xFF60)
+            || (codePoint >= 0xFFE0 && codePoint <= 0xFFE6)
+            || (codePoint >= 0x1F300 && codePoint <= 0x1F64F)
+            || (codePoint >= 0x1F900 && codePoint <= 0x1F9FF)
+            || (codePoint >= 0x20000 && codePoint <= 0x3FFFD);
+    }
+}
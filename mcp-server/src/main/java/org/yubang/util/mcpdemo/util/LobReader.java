@@ -0,0 +1,262 @@
+package org.yubang.util.mcpdemo.util;
+
+import cn.hutool.core.util.HexUtil;
+import org.yubang.util.mcpdemo.model.LobValue;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+/**
+ * 大对象读取器
+ * 通过流读取BLOB/CLOB/TEXT等大对象列，不调用getObject将整个值放入内存；
+ * 不超过maxBytes的值原样返回，超出时按处理方式截断、只计算摘要或写入临时文件
+ */
+public final class LobReader {
+
+    /**
+     * 大对象处理方式
+     */
+    public enum Mode {
+        /**
+         * 只返回前maxBytes，文本按字符数计
+         */
+        TRUNCATE,
+        /**
+         * 超出maxBytes的值只返回长度和SHA-256摘要
+         */
+        HASH,
+        /**
+         * 超出maxBytes的值写入临时文件，返回文件句柄；写入超出存储的剩余空间时读取失败
+         */
+        SPILL,
+        /**
+         * 不做特殊处理，按普通列读取
+         */
+        FULL
+    }
+    
+    private static final int BUFFER_SIZE = 8192;
+    
+    private final Mode mode;
+    
+    private final int maxBytes;
+    
+    private final SpillStore spillStore;
+    
+    public LobReader(Mode mode, int maxBytes, SpillStore spillStore) {
+        this.mode = mode;
+        this.maxBytes = Math.max(1, maxBytes);
+        this.spillStore = spillStore;
+    }
+    
+    /**
+     * 解析处理方式
+     *
+     * @param value 处理方式名称，忽略大小写
+     * @return 处理方式
+     * @throws IllegalArgumentException 不支持的处理方式
+     */
+    public static Mode parseMode(String value) {
+        try {
+            return Mode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("不支持的LOB处理方式: " + value + "，可选值为truncate、hash、spill、full");
+        }
+    }
+    
+    /**
+     * 是否按大对象读取该列
+     * LOB类型总是按大对象读取；字符和二进制类型在声明长度未知或超过maxBytes时同样按大对象读取，
+     * 如PostgreSQL的text和不限长度的varchar
+     */
+    public boolean handles(ResultSetMetaData metaData, int index) throws SQLException {
+        if (mode == Mode.FULL) {
+            return false;
+        }
+        switch (metaData.getColumnType(index)) {
+            case Types.BLOB:
+            case Types.CLOB:
+            case Types.NCLOB:
+            case Types.LONGVARBINARY:
+            case Types.LONGVARCHAR:
+            case Types.LONGNVARCHAR:
+                return true;
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.BINARY:
+            case Types.VARBINARY:
+                int precision = metaData.getPrecision(index);
+                return precision <= 0 || precision > maxBytes;
+            default:
+                return false;
+        }
+    }
+    
+    /**
+     * 是否为二进制类型
+     */
+    public static boolean isBinary(ResultSetMetaData metaData, int index) throws SQLException {
+        switch (metaData.getColumnType(index)) {
+            case Types.BLOB:
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+                return true;
+            default:
+                return false;
+        }
+    }
+    
+    /**
+     * 读取当前行的大对象列
+     *
+     * @param rs 结果集
+     * @param index 列序号
+     * @param binary 是否为二进制类型
+     * @return null、完整的值(String或byte[])或LobValue
+     * @throws SQLException 读取失败
+     */
+    public Object read(ResultSet rs, int index, boolean binary) throws SQLException {
+        try {
+            if (binary) {
+                try (InputStream in = rs.getBinaryStream(index)) {
+                    return in == null ? null : readBinary(in);
+                }
+            }
+            try (Reader reader = rs.getCharacterStream(index)) {
+                return reader == null ? null : readText(reader);
+            }
+        } catch (IOException e) {
+            throw new SQLException("读取大对象列失败: " + e.getMessage(), e);
+        }
+    }
+    
+    private Object readBinary(InputStream in) throws IOException {
+        // 多读一个字节用于判断是否超出
+        byte[] head = in.readNBytes(maxBytes + 1);
+        if (head.length <= maxBytes) {
+            return head;
+        }
+        if (mode == Mode.HASH) {
+            MessageDigest digest = sha256();
+            digest.update(head);
+            long length = head.length + in.transferTo(new DigestOutputStream(OutputStream.nullOutputStream(), digest));
+            return LobValue.hashed(length, HexUtil.encodeHexStr(digest.digest()));
+        }
+        if (mode == Mode.TRUNCATE) {
+            return LobValue.truncated(Arrays.copyOf(head, maxBytes));
+        }
+        
+        Path file = spillStore.allocate(".bin");
+        try (OutputStream out = new LimitedOutputStream(Files.newOutputStream(file), spillStore.remainingBytes())) {
+            out.write(head);
+            long length = head.length + in.transferTo(out);
+            return LobValue.spilled(length, spillStore.handleOf(file));
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+    
+    private Object readText(Reader reader) throws IOException {
+        char[] head = new char[maxBytes + 1];
+        int headLength = readFully(reader, head);
+        if (headLength <= maxBytes) {
+            return new String(head, 0, headLength);
+        }
+        if (mode == Mode.HASH) {
+            MessageDigest digest = sha256();
+            long length;
+            // 由Writer负责UTF-8编码，跨缓冲区的代理对也能正确编码
+            try (Writer writer = new OutputStreamWriter(
+                    new DigestOutputStream(OutputStream.nullOutputStream(), digest), StandardCharsets.UTF_8)) {
+                writer.write(head, 0, headLength);
+                length = headLength + reader.transferTo(writer);
+            }
+            return LobValue.hashed(length, HexUtil.encodeHexStr(digest.digest()));
+        }
+        if (mode == Mode.TRUNCATE) {
+            // 不在代理对中间截断
+            int end = Character.isHighSurrogate(head[maxBytes - 1]) ? maxBytes - 1 : maxBytes;
+            return LobValue.truncated(new String(head, 0, end));
+        }
+        
+        Path file = spillStore.allocate(".txt");
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new LimitedOutputStream(Files.newOutputStream(file), spillStore.remainingBytes()), StandardCharsets.UTF_8))) {
+            writer.write(head, 0, headLength);
+            long length = headLength + reader.transferTo(writer);
+            return LobValue.spilled(length, spillStore.handleOf(file));
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+    
+    private int readFully(Reader reader, char[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = reader.read(buffer, total, Math.min(BUFFER_SIZE, buffer.length - total));
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+    
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // 所有JVM都必须支持SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * 限制写入字节数的输出流，溢出文件写到存储的剩余空间时停止，不会写满磁盘
+     */
+    private static class LimitedOutputStream extends FilterOutputStream {
+        private final long limit;
+        private long written;
+        
+        LimitedOutputStream(OutputStream out, long limit) {
+            super(out);
+            this.limit = limit;
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (written + len > limit) {
+                throw new IOException("临时文件存储空间不足，剩余 " + limit + " 字节，大对象无法写入临时文件");
+            }
+            out.write(b, off, len);
+            written += len;
+        }
+    }
+}
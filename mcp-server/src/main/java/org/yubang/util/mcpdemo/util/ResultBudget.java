@@ -0,0 +1,66 @@
+package org.yubang.util.mcpdemo.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 查询结果的行数和字节数预算
+ * 读取结果集时每行先申请预算，预算用尽后停止读取；字节数为JSON序列化后的估算值，
+ * 超出字节预算的那一行仍会保留。可在并行扫描的多个分区间共享
+ */
+public final class ResultBudget {
+
+    /**
+     * 最大行数，0表示不限制
+     */
+    private final long maxRows;
+    
+    /**
+     * 最大字节数，0表示不限制
+     */
+    private final long maxBytes;
+    
+    private final AtomicLong rows = new AtomicLong();
+    
+    private final AtomicLong bytes = new AtomicLong();
+    
+    private volatile boolean exhausted;
+    
+    public ResultBudget(long maxRows, long maxBytes) {
+        this.maxRows = Math.max(0, maxRows);
+        this.maxBytes = Math.max(0, maxBytes);
+    }
+    
+    /**
+     * 申请读取一行
+     *
+     * @return 预算未用尽时返回true
+     */
+    public boolean tryAcquireRow() {
+        if (exhausted) {
+            return false;
+        }
+        if ((maxRows > 0 && rows.incrementAndGet() > maxRows)
+                || (maxBytes > 0 && bytes.get() >= maxBytes)) {
+            exhausted = true;
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * 记录已读取行的字节数
+     *
+     * @param rowBytes 行的估算字节数
+     */
+    public void addBytes(long rowBytes) {
+        bytes.addAndGet(rowBytes);
+    }
+    
+    public long getMaxRows() {
+        return maxRows;
+    }
+    
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+}
@@ -0,0 +1,223 @@
+package org.yubang.util.mcpdemo.util;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * 结果集工作表写入器
+ * 根据结果集元数据为每一列选定一次写值方式，读取时直接从ResultSet写入单元格，
+ * 不经过Map或列式中间结果；超出Excel数值精度的整数和小数写为文本
+ */
+public final class ResultSetSheetWriter {
+
+    // 单元格文本的最大长度，超出时POI会抛出异常
+    private static final int MAX_TEXT_LENGTH = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+    
+    // Excel数值只保留15位有效数字，超出的整数和小数写为文本
+    private static final int MAX_NUMERIC_PRECISION = 15;
+    
+    private static final long MAX_EXACT_LONG = 999_999_999_999_999L;
+    
+    private final String[] columnNames;
+    
+    private final CellWriter[] writers;
+    
+    private ResultSetSheetWriter(String[] columnNames, CellWriter[] writers) {
+        this.columnNames = columnNames;
+        this.writers = writers;
+    }
+    
+    /**
+     * 根据结果集元数据创建写入器，日期列的单元格样式在工作簿中只创建一次
+     *
+     * @param metaData 结果集元数据
+     * @param workbook 写入的工作簿
+     * @return 写入器
+     * @throws SQLException 读取元数据失败
+     */
+    public static ResultSetSheetWriter forMetaData(ResultSetMetaData metaData, Workbook workbook) throws SQLException {
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+        CellStyle timestampStyle = workbook.createCellStyle();
+        timestampStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+        
+        int columnCount = metaData.getColumnCount();
+        String[] columnNames = new String[columnCount];
+        CellWriter[] writers = new CellWriter[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columnNames[i] = metaData.getColumnLabel(i + 1);
+            writers[i] = createWriter(metaData, i + 1, dateStyle, timestampStyle);
+        }
+        return new ResultSetSheetWriter(columnNames, writers);
+    }
+    
+    public String[] getColumnNames() {
+        return columnNames;
+    }
+    
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+    
+    /**
+     * 写出表头行，有映射时使用映射的标题，否则使用列名
+     */
+    public void writeHeader(Row row, Map<String, String> headerMapping) {
+        for (int i = 0; i < columnNames.length; i++) {
+            String headerName = headerMapping != null && headerMapping.containsKey(columnNames[i])
+                ? headerMapping.get(columnNames[i]) : columnNames[i];
+            row.createCell(i).setCellValue(headerName);
+        }
+    }
+    
+    /**
+     * 将结果集当前行写入工作表的一行，NULL值的单元格留空
+     */
+    public void writeRow(Row row, ResultSet rs) throws SQLException {
+        for (int i = 0; i < writers.length; i++) {
+            writers[i].write(row, i, rs, i + 1);
+        }
+    }
+    
+    /**
+     * 根据列类型选择写值方式，数值列直接读取基本类型避免装箱
+     */
+    private static CellWriter createWriter(ResultSetMetaData metaData, int index, CellStyle dateStyle,
+                                           CellStyle timestampStyle) throws SQLException {
+        switch (metaData.getColumnType(index)) {
+            case Types.BIGINT:
+                // 无符号BIGINT可能超出long范围，按DECIMAL读取
+                if (!metaData.isSigned(index)) {
+                    return ResultSetSheetWriter::writeDecimal;
+                }
+                // fall through
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return (row, cellIndex, rs, column) -> {
+                    long value = rs.getLong(column);
+                    if (!rs.wasNull()) {
+                        setNumber(row.createCell(cellIndex), value);
+                    }
+                };
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return (row, cellIndex, rs, column) -> {
+                    double value = rs.getDouble(column);
+                    if (!rs.wasNull()) {
+                        row.createCell(cellIndex).setCellValue(value);
+                    }
+                };
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return ResultSetSheetWriter::writeDecimal;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return (row, cellIndex, rs, column) -> {
+                    boolean value = rs.getBoolean(column);
+                    if (!rs.wasNull()) {
+                        row.createCell(cellIndex).setCellValue(value);
+                    }
+                };
+            case Types.DATE:
+                return (row, cellIndex, rs, column) -> {
+                    java.sql.Date value = rs.getDate(column);
+                    if (value != null) {
+                        Cell cell = row.createCell(cellIndex);
+                        cell.setCellValue(value);
+                        cell.setCellStyle(dateStyle);
+                    }
+                };
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return (row, cellIndex, rs, column) -> {
+                    Timestamp value = rs.getTimestamp(column);
+                    if (value != null) {
+                        Cell cell = row.createCell(cellIndex);
+                        cell.setCellValue(value);
+                        cell.setCellStyle(timestampStyle);
+                    }
+                };
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return (row, cellIndex, rs, column) -> {
+                    byte[] value = rs.getBytes(column);
+                    if (value != null) {
+                        row.createCell(cellIndex).setCellValue(fitText(Base64.getEncoder().encodeToString(value)));
+                    }
+                };
+            default:
+                return (row, cellIndex, rs, column) -> {
+                    String value = rs.getString(column);
+                    if (value != null) {
+                        row.createCell(cellIndex).setCellValue(fitText(value));
+                    }
+                };
+        }
+    }
+    
+    private static void writeDecimal(Row row, int cellIndex, ResultSet rs, int column) throws SQLException {
+        BigDecimal value = rs.getBigDecimal(column);
+        if (value != null) {
+            setNumber(row.createCell(cellIndex), value);
+        }
+    }
+    
+    /**
+     * 写入整数，超过15位的整数(如雪花ID)写为文本，避免Excel将末尾几位变成0
+     *
+     * @param cell 单元格
+     * @param value 整数值
+     */
+    public static void setNumber(Cell cell, long value) {
+        if (value > MAX_EXACT_LONG || value < -MAX_EXACT_LONG) {
+            cell.setCellValue(Long.toString(value));
+        } else {
+            cell.setCellValue(value);
+        }
+    }
+    
+    /**
+     * 写入小数，有效数字超过15位时写为文本，保留数据库中的精确值
+     *
+     * @param cell 单元格
+     * @param value 小数值
+     */
+    public static void setNumber(Cell cell, BigDecimal value) {
+        if (value.stripTrailingZeros().precision() > MAX_NUMERIC_PRECISION) {
+            cell.setCellValue(value.toPlainString());
+        } else {
+            cell.setCellValue(value.doubleValue());
+        }
+    }
+    
+    /**
+     * 截断超出单元格长度上限的文本
+     */
+    private static String fitText(String value) {
+        return value.length() > MAX_TEXT_LENGTH ? value.substring(0, MAX_TEXT_LENGTH) : value;
+    }
+    
+    /**
+     * 单列的写值方式
+     */
+    @FunctionalInterface
+    private interface CellWriter {
+        void write(Row row, int cellIndex, ResultSet rs, int column) throws SQLException;
+    }
+}
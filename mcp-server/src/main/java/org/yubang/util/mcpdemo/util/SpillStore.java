@@ -0,0 +1,35 @@
+package org.yubang.util.mcpdemo.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 溢出文件存储
+ * 读取结果时无法放入内存的大对象写入临时文件，调用方通过句柄获取文件内容
+ */
+public interface SpillStore {
+    
+    /**
+     * 分配一个新的临时文件路径，文件由调用方创建并写入
+     *
+     * @param extension 文件扩展名，以.开头
+     * @return 临时文件路径
+     * @throws IOException 存储空间不足或无法分配
+     */
+    Path allocate(String extension) throws IOException;
+    
+    /**
+     * 获取临时文件的句柄，在文件写入完成后调用
+     *
+     * @param file 由allocate分配的文件路径
+     * @return 句柄
+     */
+    String handleOf(Path file);
+    
+    /**
+     * 存储剩余的可用空间，写入溢出文件时不超过该大小
+     *
+     * @return 剩余字节数
+     */
+    long remainingBytes();
+}
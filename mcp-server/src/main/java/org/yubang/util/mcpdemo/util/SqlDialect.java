@@ -0,0 +1,120 @@
+package org.yubang.util.mcpdemo.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * SQL方言
+ * 根据JDBC URL识别数据库类型，用于处理各数据库之间的语法和驱动行为差异
+ */
+public enum SqlDialect {
+    MYSQL,
+    H2,
+    POSTGRESQL,
+    GENERIC;
+    
+    /**
+     * 根据JDBC URL识别数据库方言
+     *
+     * @param url JDBC URL
+     * @return 数据库方言，无法识别时返回GENERIC
+     */
+    public static SqlDialect fromUrl(String url) {
+        if (url == null) {
+            return GENERIC;
+        }
+        String lowerUrl = url.toLowerCase();
+        if (lowerUrl.startsWith("jdbc:mysql:") || lowerUrl.startsWith("jdbc:mariadb:")) {
+            return MYSQL;
+        }
+        if (lowerUrl.startsWith("jdbc:h2:")) {
+            return H2;
+        }
+        if (lowerUrl.startsWith("jdbc:postgresql:")) {
+            return POSTGRESQL;
+        }
+        return GENERIC;
+    }
+    
+    /**
+     * 生成限制返回行数的子句
+     *
+     * @param limit 最大行数
+     * @return 以空格开头的LIMIT子句
+     */
+    public String limitClause(int limit) {
+        if (this == GENERIC) {
+            // SQL:2008标准语法
+            return " FETCH FIRST " + limit + " ROWS ONLY";
+        }
+        return " LIMIT " + limit;
+    }
+    
+    /**
+     * 生成按数据块采样的TABLESAMPLE子句，只读取被抽中的数据页
+     *
+     * @param percent 采样百分比
+     * @return 以空格开头的TABLESAMPLE子句，不支持的数据库返回null
+     */
+    public String tableSampleClause(double percent) {
+        if (this != POSTGRESQL) {
+            return null;
+        }
+        return " TABLESAMPLE SYSTEM (" + BigDecimal.valueOf(percent).setScale(6, RoundingMode.UP).toPlainString() + ")";
+    }
+    
+    /**
+     * 生成查看执行计划的语句前缀，PostgreSQL输出JSON格式以便读取各节点的估算值
+     *
+     * @return 以空格结尾的EXPLAIN前缀，不支持的数据库返回null
+     */
+    public String explainPrefix() {
+        switch (this) {
+            case MYSQL:
+            case H2:
+                return "EXPLAIN ";
+            case POSTGRESQL:
+                return "EXPLAIN (FORMAT JSON) ";
+            default:
+                return null;
+        }
+    }
+    
+    /**
+     * 按表查询估算行数的SQL，结果第一列为表名，第二列为估算行数，参数为schema名
+     * 数据来自数据库的统计信息，不扫描数据
+     *
+     * @return SQL，不支持的数据库返回null
+     */
+    public String rowEstimateSql() {
+        switch (this) {
+            case MYSQL:
+                return "SELECT TABLE_NAME, TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = ?";
+            case H2:
+                return "SELECT TABLE_NAME, ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = ?";
+            case POSTGRESQL:
+                // 从未ANALYZE过的表reltuples为-1
+                return "SELECT c.relname, CASE WHEN c.reltuples < 0 THEN NULL ELSE CAST(c.reltuples AS BIGINT) END"
+                    + " FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace"
+                    + " WHERE n.nspname = ? AND c.relkind IN ('r', 'p')";
+            default:
+                return null;
+        }
+    }
+    
+    /**
+     * 一次查询整个schema所有表主键列的SQL，结果第一列为表名，第二列为列名，参数为schema名
+     *
+     * @return SQL，不支持information_schema的数据库返回null
+     */
+    public String primaryKeySql() {
+        if (this == GENERIC) {
+            return null;
+        }
+        return "SELECT k.TABLE_NAME, k.COLUMN_NAME FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS t"
+            + " JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE k ON k.CONSTRAINT_NAME = t.CONSTRAINT_NAME"
+            + " AND k.TABLE_SCHEMA = t.TABLE_SCHEMA AND k.TABLE_NAME = t.TABLE_NAME"
+            + " WHERE t.CONSTRAINT_TYPE = 'PRIMARY KEY' AND t.TABLE_SCHEMA = ?"
+            + " ORDER BY k.TABLE_NAME, k.ORDINAL_POSITION";
+    }
+}
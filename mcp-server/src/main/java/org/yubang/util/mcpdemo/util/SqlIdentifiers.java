@@ -0,0 +1,30 @@
+package org.yubang.util.mcpdemo.util;
+
+import java.util.regex.Pattern;
+
+/**
+ * SQL标识符工具类
+ * 表名、列名等标识符无法通过参数绑定传入，拼接进SQL前必须校验
+ */
+public final class SqlIdentifiers {
+
+    // 允许schema.table形式的限定名，每一段只能包含字母、数字、下划线和$
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*(\\.[A-Za-z_][A-Za-z0-9_$]*)*");
+    
+    private SqlIdentifiers() {
+    }
+    
+    /**
+     * 校验标识符是否合法
+     *
+     * @param identifier 表名或列名
+     * @return 校验通过的标识符
+     * @throws IllegalArgumentException 标识符为空或包含非法字符
+     */
+    public static String requireValid(String identifier) {
+        if (identifier == null || !IDENTIFIER.matcher(identifier).matches()) {
+            throw new IllegalArgumentException("非法的SQL标识符: " + identifier);
+        }
+        return identifier;
+    }
+}
@@ -0,0 +1,125 @@
+package org.yubang.util.mcpdemo.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 批量写入SQL生成器
+ * 表名和列名经过标识符校验，所有值都作为绑定参数传入，
+ * upsert按数据库方言生成对应的冲突处理语法
+ */
+public final class WriteSql {
+
+    public static final String INSERT = "insert";
+    
+    public static final String UPSERT = "upsert";
+    
+    private WriteSql() {
+    }
+    
+    /**
+     * 生成单行写入的预编译SQL，批量执行时每行绑定一次
+     *
+     * @param tableName 表名
+     * @param columns 写入的列
+     * @param mode 写入方式：insert或upsert
+     * @param keyColumns upsert时判断冲突的键列
+     * @param dialect 数据库方言
+     * @return 只包含位置参数的SQL
+     * @throws IllegalArgumentException 写入方式不支持、标识符非法或缺少键列
+     */
+    public static String build(String tableName, List<String> columns, String mode, List<String> keyColumns,
+                               SqlDialect dialect) {
+        if (columns == null || columns.isEmpty()) {
+            throw new IllegalArgumentException("缺少写入的列columns");
+        }
+        List<String> validColumns = new ArrayList<>(columns.size());
+        Set<String> seen = new HashSet<>();
+        for (String column : columns) {
+            validColumns.add(SqlIdentifiers.requireValid(column));
+            if (!seen.add(column.toLowerCase(Locale.ROOT))) {
+                throw new IllegalArgumentException("重复的列: " + column);
+            }
+        }
+        String table = SqlIdentifiers.requireValid(tableName);
+        String columnList = String.join(", ", validColumns);
+        String placeholders = String.join(", ", Collections.nCopies(validColumns.size(), "?"));
+        
+        String normalizedMode = mode == null || mode.isEmpty() ? INSERT : mode.toLowerCase(Locale.ROOT);
+        if (INSERT.equals(normalizedMode)) {
+            return "INSERT INTO " + table + " (" + columnList + ") VALUES (" + placeholders + ")";
+        }
+        if (!UPSERT.equals(normalizedMode)) {
+            throw new IllegalArgumentException("不支持的写入方式: " + mode + "，可选值为insert、upsert");
+        }
+        
+        List<String> keys = new ArrayList<>();
+        if (keyColumns != null) {
+            for (String key : keyColumns) {
+                if (!seen.contains(SqlIdentifiers.requireValid(key).toLowerCase(Locale.ROOT))) {
+                    throw new IllegalArgumentException("键列 " + key + " 不在写入的列中");
+                }
+                keys.add(key);
+            }
+        }
+        Set<String> keySet = new HashSet<>();
+        keys.forEach(key -> keySet.add(key.toLowerCase(Locale.ROOT)));
+        List<String> updates = new ArrayList<>();
+        for (String column : validColumns) {
+            if (!keySet.contains(column.toLowerCase(Locale.ROOT))) {
+                updates.add(column);
+            }
+        }
+        
+        switch (dialect) {
+            case MYSQL: {
+                // 冲突由表上的主键和唯一键判断，没有非键列时用无副作用的赋值忽略冲突
+                StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+                    .append(" (").append(columnList).append(") VALUES (").append(placeholders)
+                    .append(") ON DUPLICATE KEY UPDATE ");
+                List<String> targets = updates.isEmpty() ? validColumns.subList(0, 1) : updates;
+                for (int i = 0; i < targets.size(); i++) {
+                    if (i > 0) {
+                        sql.append(", ");
+                    }
+                    String column = targets.get(i);
+                    sql.append(column).append(" = ").append(updates.isEmpty() ? column : "VALUES(" + column + ")");
+                }
+                return sql.toString();
+            }
+            case POSTGRESQL: {
+                requireKeys(keys, dialect);
+                StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+                    .append(" (").append(columnList).append(") VALUES (").append(placeholders)
+                    .append(") ON CONFLICT (").append(String.join(", ", keys)).append(")");
+                if (updates.isEmpty()) {
+                    return sql.append(" DO NOTHING").toString();
+                }
+                sql.append(" DO UPDATE SET ");
+                for (int i = 0; i < updates.size(); i++) {
+                    if (i > 0) {
+                        sql.append(", ");
+                    }
+                    sql.append(updates.get(i)).append(" = EXCLUDED.").append(updates.get(i));
+                }
+                return sql.toString();
+            }
+            case H2:
+                requireKeys(keys, dialect);
+                return "MERGE INTO " + table + " (" + columnList + ") KEY (" + String.join(", ", keys)
+                    + ") VALUES (" + placeholders + ")";
+            default:
+                throw new IllegalArgumentException("当前数据库不支持upsert，请使用insert");
+        }
+    }
+    
+    private static void requireKeys(List<String> keys, SqlDialect dialect) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException(dialect + " 的upsert需要通过keyColumns指定判断冲突的键列");
+        }
+    }
+}
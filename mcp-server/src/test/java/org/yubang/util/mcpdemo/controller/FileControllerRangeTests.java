@@ -0,0 +1,63 @@
+package org.yubang.util.mcpdemo.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileControllerRangeTests {
+
+    @Test
+    void suffixRangeReturnsLastBytes() {
+        FileController.ByteRange range = FileController.parseRange("bytes=-10", 100);
+        
+        assertRange(range, 90, 99);
+    }
+    
+    @Test
+    void suffixRangeLongerThanFileReturnsWholeFile() {
+        FileController.ByteRange range = FileController.parseRange("bytes=-500", 100);
+        
+        assertRange(range, 0, 99);
+    }
+    
+    @Test
+    void openEndedRangeRunsToEndOfFile() {
+        FileController.ByteRange range = FileController.parseRange("bytes=40-", 100);
+        
+        assertRange(range, 40, 99);
+    }
+    
+    @Test
+    void endBeyondFileIsClamped() {
+        FileController.ByteRange range = FileController.parseRange("bytes=50-1000", 100);
+        
+        assertRange(range, 50, 99);
+    }
+    
+    @Test
+    void startAtOrBeyondLengthIsUnsatisfiable() {
+        assertFalse(FileController.parseRange("bytes=100-", 100).satisfiable);
+        assertFalse(FileController.parseRange("bytes=150-200", 100).satisfiable);
+        assertFalse(FileController.parseRange("bytes=-0", 100).satisfiable);
+        assertFalse(FileController.parseRange("bytes=0-", 0).satisfiable);
+    }
+    
+    @Test
+    void invalidRangesAreIgnored() {
+        assertNull(FileController.parseRange(null, 100));
+        assertNull(FileController.parseRange("bytes=5-3", 100));
+        assertNull(FileController.parseRange("bytes=-", 100));
+        assertNull(FileController.parseRange("bytes=0-1,5-6", 100));
+        assertNull(FileController.parseRange("items=0-1", 100));
+        assertNull(FileController.parseRange("bytes=99999999999999999999-", 100));
+    }
+    
+    private static void assertRange(FileController.ByteRange range, long start, long end) {
+        assertTrue(range.satisfiable);
+        assertEquals(start, range.start);
+        assertEquals(end, range.end);
+    }
+}
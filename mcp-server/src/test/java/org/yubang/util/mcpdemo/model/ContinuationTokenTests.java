@@ -0,0 +1,84 @@
+package org.yubang.util.mcpdemo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ContinuationTokenTests {
+
+    @Test
+    void roundTripsStringKey() {
+        ContinuationToken token = ContinuationToken.decode(ContinuationToken.of("code", "A-100", Types.VARCHAR, "hash").encode());
+        
+        assertEquals("code", token.getKeyColumn());
+        assertEquals("A-100", token.getLastKey());
+        assertEquals("hash", token.getQueryHash());
+        assertNull(token.getKeySqlType());
+        assertEquals("A-100", token.bindValue());
+    }
+    
+    @Test
+    void roundTripsTimestampKeyWithItsSqlType() {
+        Timestamp updatedAt = Timestamp.valueOf("2024-03-01 12:34:56.123456789");
+        ContinuationToken token = ContinuationToken.decode(
+            ContinuationToken.of("updated_at", updatedAt, Types.TIMESTAMP, "hash").encode());
+        
+        assertEquals(Types.TIMESTAMP, token.getKeySqlType());
+        assertEquals(updatedAt, token.bindValue());
+    }
+    
+    @Test
+    void roundTripsLocalDateTimeAndDateKeys() {
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 3, 1, 12, 0);
+        ContinuationToken timestamp = ContinuationToken.decode(
+            ContinuationToken.of("updated_at", updatedAt, Types.TIMESTAMP, "hash").encode());
+        assertEquals(Timestamp.valueOf(updatedAt), timestamp.bindValue());
+        
+        Date day = Date.valueOf("2024-03-01");
+        ContinuationToken date = ContinuationToken.decode(ContinuationToken.of("day", day, Types.DATE, "hash").encode());
+        assertEquals(day, date.bindValue());
+    }
+    
+    @Test
+    void keepsSqlTypeForKeysBoundAsText() {
+        UUID id = UUID.fromString("3f2a9c0e-5b7d-4e1f-8a6b-2c4d9e0f1a2b");
+        ContinuationToken token = ContinuationToken.decode(ContinuationToken.of("id", id, Types.OTHER, "hash").encode());
+        
+        assertEquals(Types.OTHER, token.getKeySqlType());
+        assertEquals(id.toString(), token.bindValue());
+    }
+    
+    @Test
+    void roundTripsNumericKeysWithoutLosingPrecision() {
+        long large = 9007199254740993L;
+        ContinuationToken longKey = ContinuationToken.decode(ContinuationToken.of("id", large, Types.BIGINT, "hash").encode());
+        assertEquals(large, ((Number) longKey.getLastKey()).longValue());
+        
+        BigDecimal decimal = new BigDecimal("12345678901234567.89");
+        ContinuationToken decimalKey = ContinuationToken.decode(ContinuationToken.of("price", decimal, Types.DECIMAL, "hash").encode());
+        assertEquals(decimal, decimalKey.getLastKey());
+    }
+    
+    @Test
+    void encodesUrlSafeToken() {
+        String encoded = ContinuationToken.of("id", "???>>>", Types.VARCHAR, "hash").encode();
+        
+        assertFalse(encoded.contains("+") || encoded.contains("/") || encoded.contains("="));
+    }
+    
+    @Test
+    void rejectsMalformedToken() {
+        assertThrows(IllegalArgumentException.class, () -> ContinuationToken.decode("not a token"));
+        assertThrows(IllegalArgumentException.class, () -> ContinuationToken.decode("bm90IGpzb24"));
+    }
+}
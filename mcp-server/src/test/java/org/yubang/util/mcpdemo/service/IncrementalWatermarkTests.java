@@ -0,0 +1,50 @@
+package org.yubang.util.mcpdemo.service;
+
+import org.junit.jupiter.api.Test;
+import org.yubang.util.mcpdemo.model.QueryResult;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IncrementalWatermarkTests {
+
+    @Test
+    void returnsAllRowsWhenNotTruncated() {
+        QueryResult result = rows(1, 2, 2, 2);
+        
+        assertEquals(4, DatabaseService.completeWatermarkRows(result, 1));
+    }
+    
+    @Test
+    void holdsBackTrailingTieGroupWhenTruncated() {
+        QueryResult result = rows(1, 2, 3, 3);
+        result.markTruncated();
+        
+        assertEquals(2, DatabaseService.completeWatermarkRows(result, 1));
+    }
+    
+    @Test
+    void refusesToAdvanceWhenWholeTruncatedPageSharesOneWatermark() {
+        // 批量UPDATE把超过maxRows行的updated_at设为同一个值
+        QueryResult result = rows(7, 7, 7);
+        result.markTruncated();
+        
+        assertThrows(IllegalStateException.class, () -> DatabaseService.completeWatermarkRows(result, 1));
+    }
+    
+    private static QueryResult rows(int... watermarks) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < watermarks.length; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", i);
+            row.put("updated_at", watermarks[i]);
+            rows.add(row);
+        }
+        return QueryResult.fromRows(rows);
+    }
+}
@@ -0,0 +1,109 @@
+package org.yubang.util.mcpdemo.util;
+
+import org.junit.jupiter.api.Test;
+import org.yubang.util.mcpdemo.model.AggregateConfig;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AggregateSqlTests {
+
+    @Test
+    void buildsParameterizedSql() {
+        AggregateConfig config = new AggregateConfig();
+        config.setGroupBy(List.of("region"));
+        config.setAggregates(List.of(aggregate("sum", "amount", "total")));
+        config.setFilters(List.of(filter("status", "in", List.of("paid", "shipped")), filter("amount", ">", 100)));
+        config.setOrderBy(List.of("total desc"));
+        config.setLimit(10);
+        
+        BoundSql sql = AggregateSql.build(config, "orders", SqlDialect.MYSQL);
+        
+        assertEquals("SELECT region, SUM(amount) AS total FROM orders WHERE status IN (?, ?) AND amount > ?"
+            + " GROUP BY region ORDER BY total DESC LIMIT 10", sql.getSql());
+        assertEquals(List.of("paid", "shipped", 100), sql.getParams());
+    }
+    
+    @Test
+    void bindsFilterValuesInsteadOfInliningThem() {
+        AggregateConfig config = new AggregateConfig();
+        config.setFilters(List.of(filter("name", "=", "x' OR '1'='1")));
+        
+        BoundSql sql = AggregateSql.build(config, "users", SqlDialect.POSTGRESQL);
+        
+        assertEquals("SELECT COUNT(*) AS row_count FROM users WHERE name = ? LIMIT 1000", sql.getSql());
+        assertEquals(List.of("x' OR '1'='1"), sql.getParams());
+    }
+    
+    @Test
+    void rejectsMaliciousIdentifiers() {
+        assertRejected(new AggregateConfig(), "users; DROP TABLE users");
+        
+        AggregateConfig groupBy = new AggregateConfig();
+        groupBy.setGroupBy(List.of("region, (SELECT password FROM users)"));
+        assertRejected(groupBy, "orders");
+        
+        AggregateConfig column = new AggregateConfig();
+        column.setAggregates(List.of(aggregate("SUM", "amount) FROM orders --", null)));
+        assertRejected(column, "orders");
+        
+        AggregateConfig alias = new AggregateConfig();
+        alias.setAggregates(List.of(aggregate("COUNT", null, "n FROM users --")));
+        assertRejected(alias, "orders");
+        
+        AggregateConfig filterColumn = new AggregateConfig();
+        filterColumn.setFilters(List.of(filter("1=1 OR id", "=", 1)));
+        assertRejected(filterColumn, "orders");
+    }
+    
+    @Test
+    void rejectsUnknownFunctionsAndOperators() {
+        AggregateConfig function = new AggregateConfig();
+        function.setAggregates(List.of(aggregate("SLEEP", "amount", null)));
+        assertRejected(function, "orders");
+        
+        AggregateConfig injected = new AggregateConfig();
+        injected.setFilters(List.of(filter("id", "= 1 OR 1 =", 1)));
+        assertRejected(injected, "orders");
+        
+        AggregateConfig exists = new AggregateConfig();
+        exists.setFilters(List.of(filter("id", "EXISTS", 1)));
+        assertRejected(exists, "orders");
+        
+        AggregateConfig between = new AggregateConfig();
+        between.setFilters(List.of(filter("id", "BETWEEN", List.of(1))));
+        assertRejected(between, "orders");
+    }
+    
+    @Test
+    void rejectsMaliciousOrderBy() {
+        for (String order : List.of("row_count; DROP TABLE orders", "row_count DESC, (SELECT 1)",
+                "row_count DESC NULLS", "row_count SIDEWAYS", "amount")) {
+            AggregateConfig config = new AggregateConfig();
+            config.setOrderBy(List.of(order));
+            assertRejected(config, "orders");
+        }
+    }
+    
+    private static void assertRejected(AggregateConfig config, String tableName) {
+        assertThrows(IllegalArgumentException.class, () -> AggregateSql.build(config, tableName, SqlDialect.MYSQL));
+    }
+    
+    private static AggregateConfig.Aggregate aggregate(String function, String column, String alias) {
+        AggregateConfig.Aggregate aggregate = new AggregateConfig.Aggregate();
+        aggregate.setFunction(function);
+        aggregate.setColumn(column);
+        aggregate.setAlias(alias);
+        return aggregate;
+    }
+    
+    private static AggregateConfig.Filter filter(String column, String operator, Object value) {
+        AggregateConfig.Filter filter = new AggregateConfig.Filter();
+        filter.setColumn(column);
+        filter.setOperator(operator);
+        filter.setValue(value);
+        return filter;
+    }
+}
@@ -0,0 +1,58 @@
+package org.yubang.util.mcpdemo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BoundSqlTests {
+
+    @Test
+    void replacesNamedParametersInOrder() {
+        BoundSql sql = BoundSql.of("SELECT * FROM t WHERE a = :a AND b > :b AND c = :a", null,
+            Map.of("a", 1, "b", "x"));
+        
+        assertEquals("SELECT * FROM t WHERE a = ? AND b > ? AND c = ?", sql.getSql());
+        assertEquals(List.of(1, "x", 1), sql.getParams());
+    }
+    
+    @Test
+    void expandsCollectionParameters() {
+        BoundSql sql = BoundSql.of("SELECT * FROM t WHERE id IN (:ids)", null, Map.of("ids", List.of(1, 2, 3)));
+        
+        assertEquals("SELECT * FROM t WHERE id IN (?, ?, ?)", sql.getSql());
+        assertEquals(List.of(1, 2, 3), sql.getParams());
+    }
+    
+    @Test
+    void ignoresQuotedTextAndTypeCasts() {
+        BoundSql sql = BoundSql.of("SELECT ':skip', \"col:x\", created::date FROM t WHERE id = :id", null,
+            Map.of("id", 7));
+        
+        assertEquals("SELECT ':skip', \"col:x\", created::date FROM t WHERE id = ?", sql.getSql());
+        assertEquals(List.of(7), sql.getParams());
+    }
+    
+    @Test
+    void keepsPositionalParameters() {
+        List<Object> params = Arrays.asList(1, null);
+        BoundSql sql = BoundSql.of("SELECT * FROM t WHERE a = ? AND b = ?", params, null);
+        
+        assertEquals("SELECT * FROM t WHERE a = ? AND b = ?", sql.getSql());
+        assertEquals(params, sql.getParams());
+    }
+    
+    @Test
+    void rejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class,
+            () -> BoundSql.of("SELECT * FROM t WHERE a = :a AND b = :b", null, Map.of("a", 1)));
+        assertThrows(IllegalArgumentException.class,
+            () -> BoundSql.of("SELECT * FROM t WHERE id IN (:ids)", null, Map.of("ids", List.of())));
+        assertThrows(IllegalArgumentException.class,
+            () -> BoundSql.of("SELECT * FROM t WHERE a = :a", List.of(1), Map.of("a", 1)));
+    }
+}
@@ -0,0 +1,66 @@
+package org.yubang.util.mcpdemo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResultBudgetTests {
+
+    @Test
+    void stopsAfterMaxRows() {
+        ResultBudget budget = new ResultBudget(2, 0);
+        
+        assertTrue(budget.tryAcquireRow());
+        assertTrue(budget.tryAcquireRow());
+        assertFalse(budget.tryAcquireRow());
+        assertFalse(budget.tryAcquireRow());
+    }
+    
+    @Test
+    void keepsRowThatCrossesByteBudget() {
+        ResultBudget budget = new ResultBudget(0, 100);
+        
+        assertTrue(budget.tryAcquireRow());
+        budget.addBytes(60);
+        assertTrue(budget.tryAcquireRow());
+        budget.addBytes(60);
+        assertFalse(budget.tryAcquireRow());
+    }
+    
+    @Test
+    void zeroMeansUnlimited() {
+        ResultBudget budget = new ResultBudget(0, 0);
+        
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(budget.tryAcquireRow());
+            budget.addBytes(1_000);
+        }
+    }
+    
+    @Test
+    void sharedAcrossPartitions() throws InterruptedException {
+        ResultBudget budget = new ResultBudget(100, 0);
+        AtomicInteger acquired = new AtomicInteger();
+        
+        // 多个分区并发读取，合计不超过maxRows行
+        List<Thread> partitions = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            partitions.add(Thread.ofVirtual().start(() -> {
+                while (budget.tryAcquireRow()) {
+                    acquired.incrementAndGet();
+                }
+            }));
+        }
+        for (Thread partition : partitions) {
+            partition.join();
+        }
+        
+        assertEquals(100, acquired.get());
+    }
+}